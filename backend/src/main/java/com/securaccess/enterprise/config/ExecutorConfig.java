@@ -0,0 +1,87 @@
+package com.securaccess.enterprise.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Future;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${app.qrcode.batch.threads:0}")
+    private int qrRenderThreads;
+
+    @Value("${app.qrcode.batch.window:64}")
+    private int qrRenderWindow;
+
+    @Value("${spring.task.execution.pool.max-size:16}")
+    private int asyncThreads;
+
+    @Value("${spring.task.execution.pool.queue-capacity:100}")
+    private int asyncQueueCapacity;
+
+    @Value("${app.stream.threads:2}")
+    private int streamThreads;
+
+    @Value("${app.stream.max-subscribers:500}")
+    private int streamMaxSubscribers;
+
+    @Bean(name = "qrRenderExecutor")
+    public ThreadPoolTaskExecutor qrRenderExecutor() {
+        int threads = qrRenderThreads > 0 ? qrRenderThreads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // Each caller keeps at most one window of items in flight; with several batches at once the
+        // queue can still fill, and the submitting caller then renders the item itself
+        executor.setQueueCapacity(qrRenderWindow);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (!pool.isShutdown()) {
+                task.run();
+            } else if (task instanceof Future<?> future) {
+                // Wakes a caller waiting on its completion service instead of leaving it blocked
+                future.cancel(false);
+            }
+        });
+        executor.setThreadNamePrefix("qr-render-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    // Declaring executors above switches off Boot's own applicationTaskExecutor, which async MVC
+    // responses (streamed batches, ZIPs and exports) run on; without it they would each get a new
+    // unbounded thread. Sized by the usual spring.task.execution.pool properties.
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor applicationTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setQueueCapacity(asyncQueueCapacity);
+        executor.setThreadNamePrefix("async-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "accessStreamExecutor")
+    public ThreadPoolTaskExecutor accessStreamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // Each subscriber has at most one drain task, so there is never more work than subscribers.
+        // No queue: a drain stuck on a client that stopped reading must not hold up the others, a
+        // busy pool starts another thread instead, idle ones above the core size retire
+        executor.setCorePoolSize(streamThreads);
+        executor.setMaxPoolSize(streamMaxSubscribers);
+        executor.setQueueCapacity(0);
+        executor.setKeepAliveSeconds(30);
+        executor.setThreadNamePrefix("access-stream-");
+        executor.initialize();
+        return executor;
+    }
+}
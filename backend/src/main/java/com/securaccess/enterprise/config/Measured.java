@@ -0,0 +1,14 @@
+package com.securaccess.enterprise.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a handler whose latency and outcome are recorded under the given endpoint name
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Measured {
+
+    String value();
+}
@@ -0,0 +1,53 @@
+package com.securaccess.enterprise.config;
+
+import com.securaccess.enterprise.services.RequestMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private static final String START_ATTRIBUTE = MetricsConfig.class.getName() + ".start";
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (measured(handler) != null) {
+                    request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+                }
+                return true;
+            }
+
+            // Runs once the response is written, so the time includes serialization
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                Measured measured = measured(handler);
+                Object start = request.getAttribute(START_ATTRIBUTE);
+                if (measured == null || start == null) {
+                    return;
+                }
+                int status = response.getStatus();
+                // 4xx is the gate saying no (unknown, invalid or expired code), not a failure
+                RequestMetrics.Outcome outcome = ex != null || status >= 500 ? RequestMetrics.Outcome.ERROR
+                    : status >= 400 ? RequestMetrics.Outcome.REJECTED : RequestMetrics.Outcome.OK;
+                requestMetrics.record(measured.value(), outcome, System.nanoTime() - (Long) start);
+            }
+        });
+    }
+
+    private static Measured measured(Object handler) {
+        return handler instanceof HandlerMethod method ? method.getMethodAnnotation(Measured.class) : null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.securaccess.enterprise.controllers;
+
+import com.securaccess.enterprise.services.RequestMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/metrics")
+@CrossOrigin(origins = "*")
+public class MetricsController {
+    
+    // Prometheus text exposition format 0.0.4
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+    
+    @Autowired
+    private RequestMetrics requestMetrics;
+    
+    @GetMapping
+    public ResponseEntity<String> scrape() {
+        return ResponseEntity.ok()
+            .contentType(PROMETHEUS_TEXT)
+            .body(requestMetrics.scrape());
+    }
+}
@@ -1,33 +1,98 @@
 package com.securaccess.enterprise.controllers;
 
+import com.securaccess.enterprise.config.Measured;
+import com.securaccess.enterprise.entities.QrCodeStatus;
+import com.securaccess.enterprise.services.IssuedCodeSource;
+import com.securaccess.enterprise.services.KeysetCursor;
+import com.securaccess.enterprise.services.QrCodeBloomFilter;
+import com.securaccess.enterprise.services.QrCodeIdGenerator;
+import com.securaccess.enterprise.services.QrCodeIndex;
+import com.securaccess.enterprise.services.QrCodeStatusChange;
+import com.securaccess.enterprise.services.QrExpiryScheduler;
+import com.securaccess.enterprise.services.QrImageCache;
+import com.securaccess.enterprise.services.QrImageRenderer;
+import com.securaccess.enterprise.services.SignedQrTokenService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import javax.imageio.ImageIO;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 
 @RestController
 @RequestMapping("/qrcode")
 @CrossOrigin(origins = "*")
-public class QRCodeController {
+public class QRCodeController implements IssuedCodeSource {
 
-    // Mock QR codes database
-    private static final Map<String, Map<String, Object>> QR_CODES_DATABASE = new HashMap<>();
+    private static final String QR_ACCESS_BASE_URL = "http://ec2-13-49-68-126.eu-north-1.compute.amazonaws.com/qr/";
+    private static final int QR_IMAGE_SIZE = 300;
+    private static final ErrorCorrectionLevel QR_ERROR_CORRECTION = ErrorCorrectionLevel.H;
+
+    @Autowired
+    private QrImageCache qrImageCache;
+    
+    @Autowired
+    private QrImageRenderer qrImageRenderer;
+    
+    @Autowired
+    private QrCodeBloomFilter qrCodeBloomFilter;
+    
+    @Autowired
+    private QrCodeIdGenerator qrCodeIdGenerator;
+    
+    @Autowired
+    private SignedQrTokenService signedQrTokenService;
+    
+    @Autowired
+    private QrExpiryScheduler qrExpiryScheduler;
+    
+    @Autowired
+    @Qualifier("qrRenderExecutor")
+    private Executor qrRenderExecutor;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.qrcode.batch.window:64}")
+    private int batchWindow;
+    
+    @Value("${app.qrcode.batch.max-items:20000}")
+    private int batchMaxItems;
+
+    // Mock QR codes database. Entries are read-only snapshots: requests serialize them without a lock
+    // while the expiry scheduler updates statuses, so every change swaps in an updated copy
+    private static final Map<String, Map<String, Object>> QR_CODES_DATABASE = new ConcurrentHashMap<>();
+    // (createdAt, id) newest first, kept next to the map so cursor pages seek instead of sorting everything
+    private static final NavigableSet<KeysetCursor> QR_CODES_BY_CREATION = new ConcurrentSkipListSet<>(KeysetCursor.NEWEST_FIRST);
+    private static final int MAX_PAGE_SIZE = 200;
     
     static {
         // Initialize some mock QR codes
@@ -36,65 +101,17 @@ public class QRCodeController {
         createMockQRCode("QR003", "worker", "Pierre Durand", "Security");
     }
     
+    @PostConstruct
+    public void trackMockQRCodes() {
+        QR_CODES_DATABASE.values().forEach(this::trackValidity);
+    }
+    
     @PostMapping("/generate")
     public ResponseEntity<Map<String, Object>> generateQRCode(@RequestBody Map<String, Object> qrData) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // Validate required fields
-            String personType = (String) qrData.get("personType"); // "worker" or "host"
-            String name = (String) qrData.get("name");
-            String phone = (String) qrData.get("phone");
-            String location = (String) qrData.get("location");
-            String zone = (String) qrData.get("zone");
-            
-            if (personType == null || name == null || phone == null || location == null) {
-                response.put("success", false);
-                response.put("message", "Missing required fields: personType, name, phone, location");
-                return ResponseEntity.badRequest().body(response);
-            }
-            
-            // Generate unique QR code ID
-            String qrCodeId = generateQRCodeId(personType);
-            
-            // Parse validity period
-            String validFromStr = (String) qrData.get("validFrom");
-            String validToStr = (String) qrData.get("validTo");
-            
-            LocalDateTime validFrom = validFromStr != null ? 
-                LocalDateTime.parse(validFromStr) : LocalDateTime.now();
-            LocalDateTime validTo = validToStr != null ? 
-                LocalDateTime.parse(validToStr) : LocalDateTime.now().plusDays(1);
-            
-            // Create QR code data
-            Map<String, Object> qrCodeData = new HashMap<>();
-            qrCodeData.put("qrCodeId", qrCodeId);
-            qrCodeData.put("personType", personType);
-            qrCodeData.put("name", name);
-            qrCodeData.put("phone", phone);
-            qrCodeData.put("email", qrData.get("email"));
-            qrCodeData.put("location", location);
-            qrCodeData.put("zone", zone);
-            qrCodeData.put("department", qrData.get("department"));
-            qrCodeData.put("company", qrData.get("company"));
-            qrCodeData.put("purpose", qrData.get("purpose"));
-            qrCodeData.put("description", qrData.get("description"));
-            qrCodeData.put("instructions", qrData.get("instructions"));
-            qrCodeData.put("validFrom", validFrom);
-            qrCodeData.put("validTo", validTo);
-            qrCodeData.put("status", "active");
-            qrCodeData.put("createdAt", LocalDateTime.now());
-            qrCodeData.put("createdBy", qrData.get("createdBy"));
-            qrCodeData.put("lastAccess", null);
-            qrCodeData.put("accessCount", 0);
-            
-            // Generate QR code URL
-            String qrCodeUrl = generateQRCodeUrl(qrCodeId);
-            qrCodeData.put("qrCodeUrl", qrCodeUrl);
-            qrCodeData.put("accessUrl", "http://localhost:3000/qr/" + qrCodeId);
-            
-            // Store in database
-            QR_CODES_DATABASE.put(qrCodeId, qrCodeData);
+            Map<String, Object> qrCodeData = createQRCode(qrData, true);
             
             response.put("success", true);
             response.put("message", "QR code generated successfully");
@@ -102,6 +119,10 @@ public class QRCodeController {
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error generating QR code: " + e.getMessage());
@@ -109,6 +130,40 @@ public class QRCodeController {
         }
     }
     
+    // Declared as StreamingResponseBody so Spring streams it; a rejected batch is a 400 carrying one NDJSON error line
+    @PostMapping(value = "/generate/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> generateQRCodeBatch(InputStream requestBody) throws IOException {
+        // Items are read one at a time as the window frees up, the body is never held in memory
+        JsonParser parser = objectMapper.getFactory().createParser(requestBody);
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.close();
+                return batchRejected();
+            }
+        } catch (JsonProcessingException e) {
+            parser.close();
+            return batchRejected();
+        }
+        
+        StreamingResponseBody body = out -> {
+            try (parser) {
+                streamBatch(parser, out);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> batchRejected() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Batch must be a JSON array of between 1 and " + batchMaxItems + " entries");
+        return ResponseEntity.badRequest()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(out -> writeLine(out, response));
+    }
+    
     @GetMapping("/{qrCodeId}")
     public ResponseEntity<Map<String, Object>> getQRCode(@PathVariable String qrCodeId) {
         Map<String, Object> response = new HashMap<>();
@@ -116,20 +171,7 @@ public class QRCodeController {
         Map<String, Object> qrCode = QR_CODES_DATABASE.get(qrCodeId);
         
         if (qrCode != null) {
-            // Check if QR code is still valid
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime validFrom = (LocalDateTime) qrCode.get("validFrom");
-            LocalDateTime validTo = (LocalDateTime) qrCode.get("validTo");
-            
-            String status = "active";
-            if (now.isBefore(validFrom)) {
-                status = "not_yet_valid";
-            } else if (now.isAfter(validTo)) {
-                status = "expired";
-            }
-            
-            qrCode.put("currentStatus", status);
-            
+            // currentStatus is kept up to date by QrExpiryScheduler
             response.put("success", true);
             response.put("data", qrCode);
             return ResponseEntity.ok(response);
@@ -145,7 +187,13 @@ public class QRCodeController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String personType,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor) {
+        
+        // Any cursor, even empty for the first page, switches to keyset paging
+        if (cursor != null) {
+            return listQRCodePage(cursor, size, personType, status);
+        }
         
         Map<String, Object> response = new HashMap<>();
         
@@ -173,8 +221,10 @@ public class QRCodeController {
             int endIndex = Math.min(startIndex + size, allQRCodes.size());
             List<Map<String, Object>> pageData = allQRCodes.subList(startIndex, endIndex);
             
-            // Format dates for response
-            pageData.forEach(qr -> {
+            // Format dates for response, on copies of the stored entries
+            pageData = new ArrayList<>(pageData);
+            pageData.replaceAll(stored -> {
+                Map<String, Object> qr = new HashMap<>(stored);
                 LocalDateTime createdAt = (LocalDateTime) qr.get("createdAt");
                 LocalDateTime validFrom = (LocalDateTime) qr.get("validFrom");
                 LocalDateTime validTo = (LocalDateTime) qr.get("validTo");
@@ -182,16 +232,7 @@ public class QRCodeController {
                 qr.put("formattedCreatedAt", createdAt.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
                 qr.put("formattedValidFrom", validFrom.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
                 qr.put("formattedValidTo", validTo.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-                
-                // Update current status
-                LocalDateTime now = LocalDateTime.now();
-                String currentStatus = "active";
-                if (now.isBefore(validFrom)) {
-                    currentStatus = "not_yet_valid";
-                } else if (now.isAfter(validTo)) {
-                    currentStatus = "expired";
-                }
-                qr.put("currentStatus", currentStatus);
+                return qr;
             });
             
             response.put("success", true);
@@ -212,6 +253,66 @@ public class QRCodeController {
         }
     }
     
+    private ResponseEntity<Map<String, Object>> listQRCodePage(String cursor, int size, String personType, String status) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            NavigableSet<KeysetCursor> remaining = cursor.isEmpty()
+                ? QR_CODES_BY_CREATION
+                : QR_CODES_BY_CREATION.tailSet(KeysetCursor.decode(cursor), false);
+            
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+            List<Map<String, Object>> pageData = new ArrayList<>(pageSize);
+            KeysetCursor last = null;
+            boolean hasMore = false;
+            for (KeysetCursor position : remaining) {
+                Map<String, Object> qr = QR_CODES_DATABASE.get(position.id());
+                if (qr == null
+                        || (personType != null && !personType.isEmpty() && !personType.equals(qr.get("personType")))
+                        || (status != null && !status.isEmpty() && !status.equals(qr.get("status")))) {
+                    continue;
+                }
+                if (pageData.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                Map<String, Object> entry = new HashMap<>(qr);
+                entry.put("formattedCreatedAt", ((LocalDateTime) qr.get("createdAt")).format(formatter));
+                entry.put("formattedValidFrom", ((LocalDateTime) qr.get("validFrom")).format(formatter));
+                entry.put("formattedValidTo", ((LocalDateTime) qr.get("validTo")).format(formatter));
+                pageData.add(entry);
+                last = position;
+            }
+            
+            response.put("success", true);
+            response.put("data", pageData);
+            response.put("size", pageSize);
+            response.put("nextCursor", hasMore ? last.encode() : null);
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Invalid cursor");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    private static void store(Map<String, Object> qrCode) {
+        String id = (String) qrCode.get("qrCodeId");
+        QR_CODES_DATABASE.put(id, Collections.unmodifiableMap(new HashMap<>(qrCode)));
+        QR_CODES_BY_CREATION.add(new KeysetCursor((LocalDateTime) qrCode.get("createdAt"), id));
+    }
+    
+    // The updated entry, or null when the code is unknown
+    private static Map<String, Object> update(String qrCodeId, Consumer<Map<String, Object>> change) {
+        return QR_CODES_DATABASE.computeIfPresent(qrCodeId, (id, current) -> {
+            Map<String, Object> updated = new HashMap<>(current);
+            change.accept(updated);
+            return Collections.unmodifiableMap(updated);
+        });
+    }
+    
     @PutMapping("/{qrCodeId}/status")
     public ResponseEntity<Map<String, Object>> updateQRCodeStatus(
             @PathVariable String qrCodeId, 
@@ -224,9 +325,24 @@ public class QRCodeController {
         if (qrCode != null) {
             String newStatus = statusData.get("status");
             if (Arrays.asList("active", "suspended", "revoked").contains(newStatus)) {
-                qrCode.put("status", newStatus);
-                qrCode.put("statusUpdatedAt", LocalDateTime.now());
-                qrCode.put("statusUpdatedBy", statusData.get("updatedBy"));
+                qrCode = update(qrCodeId, qr -> {
+                    qr.put("status", newStatus);
+                    qr.put("statusUpdatedAt", LocalDateTime.now());
+                    qr.put("statusUpdatedBy", statusData.get("updatedBy"));
+                });
+                if (qrCode == null) {
+                    // Deleted in the meantime
+                    response.put("success", false);
+                    response.put("message", "QR code not found");
+                    return ResponseEntity.notFound().build();
+                }
+                qrImageCache.invalidate(qrContent(qrCodeId));
+                // Signed codes are verified without a lookup, suspension has to reach the revocation set
+                if ("active".equals(newStatus)) {
+                    signedQrTokenService.reinstate(qrCodeId);
+                } else {
+                    signedQrTokenService.revoke(qrCodeId, toEpochMillis((LocalDateTime) qrCode.get("validTo")));
+                }
                 
                 response.put("success", true);
                 response.put("message", "QR code status updated successfully");
@@ -252,6 +368,10 @@ public class QRCodeController {
         Map<String, Object> removedQRCode = QR_CODES_DATABASE.remove(qrCodeId);
         
         if (removedQRCode != null) {
+            QR_CODES_BY_CREATION.remove(new KeysetCursor((LocalDateTime) removedQRCode.get("createdAt"), qrCodeId));
+            qrImageCache.invalidate(QR_ACCESS_BASE_URL + contentId(qrCodeId, removedQRCode));
+            qrExpiryScheduler.untrack(qrCodeId);
+            signedQrTokenService.revoke(qrCodeId, toEpochMillis((LocalDateTime) removedQRCode.get("validTo")));
             response.put("success", true);
             response.put("message", "QR code deleted successfully");
             return ResponseEntity.ok(response);
@@ -263,13 +383,14 @@ public class QRCodeController {
     }
     
     @GetMapping("/{qrCodeId}/image")
+    @Measured("qr_code_image")
     public ResponseEntity<byte[]> getQRCodeImage(@PathVariable String qrCodeId) {
         try {
             // Generate QR code content with the access URL
-            String qrContent = "http://ec2-13-49-68-126.eu-north-1.compute.amazonaws.com/qr/" + qrCodeId;
+            String qrContent = qrContent(qrCodeId);
             
-            // Generate real QR code image
-            byte[] qrCodeImage = generateQRCodeImage(qrContent, 300, 300);
+            // Serve the rendered image from cache, the content for a given id never changes
+            byte[] qrCodeImage = renderCachedQRCodeImage(qrContent);
             
             return ResponseEntity.ok()
                 .contentType(MediaType.IMAGE_PNG)
@@ -282,20 +403,196 @@ public class QRCodeController {
         }
     }
     
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getImageCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("stats", qrImageCache.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/expiry/stats")
+    public ResponseEntity<Map<String, Object>> getExpiryStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("stats", qrExpiryScheduler.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    @EventListener
+    public void onStatusChange(QrCodeStatusChange change) {
+        Map<String, Object> qrCode = update(change.code(), qr -> qr.put("currentStatus", change.status().getLabel()));
+        if (qrCode != null) {
+            if (change.status() == QrCodeStatus.EXPIRED) {
+                // An expired badge is rarely displayed again, free its cached image
+                qrImageCache.invalidate(QR_ACCESS_BASE_URL + contentId(change.code(), qrCode));
+            }
+        }
+    }
+    
+    @Override
+    public void forEachIssuedCode(Consumer<String> consumer) {
+        QR_CODES_DATABASE.keySet().forEach(consumer);
+    }
+    
     // Helper methods
+    private Map<String, Object> createQRCode(Map<String, Object> qrData, boolean cacheImage) throws Exception {
+        // Validate required fields
+        String personType = (String) qrData.get("personType"); // "worker" or "host"
+        String name = (String) qrData.get("name");
+        String phone = (String) qrData.get("phone");
+        String location = (String) qrData.get("location");
+        String zone = (String) qrData.get("zone");
+        
+        if (personType == null || name == null || phone == null || location == null) {
+            throw new IllegalArgumentException("Missing required fields: personType, name, phone, location");
+        }
+        
+        // Generate unique QR code ID
+        String qrCodeId = generateQRCodeId(personType);
+        
+        // Parse validity period
+        String validFromStr = (String) qrData.get("validFrom");
+        String validToStr = (String) qrData.get("validTo");
+        
+        LocalDateTime validFrom = validFromStr != null ? 
+            LocalDateTime.parse(validFromStr) : LocalDateTime.now();
+        LocalDateTime validTo = validToStr != null ? 
+            LocalDateTime.parse(validToStr) : LocalDateTime.now().plusDays(1);
+        
+        // Create QR code data
+        Map<String, Object> qrCodeData = new HashMap<>();
+        qrCodeData.put("qrCodeId", qrCodeId);
+        qrCodeData.put("personType", personType);
+        qrCodeData.put("name", name);
+        qrCodeData.put("phone", phone);
+        qrCodeData.put("email", qrData.get("email"));
+        qrCodeData.put("location", location);
+        qrCodeData.put("zone", zone);
+        qrCodeData.put("department", qrData.get("department"));
+        qrCodeData.put("company", qrData.get("company"));
+        qrCodeData.put("purpose", qrData.get("purpose"));
+        qrCodeData.put("description", qrData.get("description"));
+        qrCodeData.put("instructions", qrData.get("instructions"));
+        qrCodeData.put("validFrom", validFrom);
+        qrCodeData.put("validTo", validTo);
+        qrCodeData.put("status", "active");
+        qrCodeData.put("currentStatus", QrCodeStatus.at(validFrom, validTo, LocalDateTime.now()).getLabel());
+        qrCodeData.put("createdAt", LocalDateTime.now());
+        qrCodeData.put("createdBy", qrData.get("createdBy"));
+        qrCodeData.put("lastAccess", null);
+        qrCodeData.put("accessCount", 0);
+        
+        if (signedQrTokenService.isEnabled()) {
+            QrCodeIndex.Kind kind = personType.equals("host") ? QrCodeIndex.Kind.HOST : QrCodeIndex.Kind.WORKER;
+            qrCodeData.put("signedToken", signedQrTokenService.issue(qrCodeId, kind, zone,
+                validFrom.atZone(ZoneId.systemDefault()).toInstant(), validTo.atZone(ZoneId.systemDefault()).toInstant()));
+        }
+        
+        qrCodeData.put("accessUrl", "http://localhost:3000/qr/" + qrCodeId);
+        qrCodeData.put("imageUrl", "/qrcode/" + qrCodeId + "/image");
+        
+        // Store in database; the inline image only goes out with this response, later reads use imageUrl
+        store(qrCodeData);
+        qrCodeBloomFilter.register(qrCodeId);
+        trackValidity(qrCodeData);
+        
+        Map<String, Object> issued = new HashMap<>(qrCodeData);
+        issued.put("qrCodeUrl", generateQRCodeUrl(QR_ACCESS_BASE_URL + contentId(qrCodeId, qrCodeData), cacheImage));
+        return issued;
+    }
+    
+    // The parser is positioned on the first item's START_OBJECT
+    private void streamBatch(JsonParser parser, OutputStream out) throws IOException {
+        // Only one window of items is parsed, rendered or buffered at any time, whatever the batch size
+        CompletionService<Map<String, Object>> completionService = new ExecutorCompletionService<>(qrRenderExecutor);
+        List<Future<Map<String, Object>>> inFlight = new ArrayList<>();
+        int submitted = 0;
+        int completed = 0;
+        boolean more = true;
+        
+        try {
+            while (more || completed < submitted) {
+                while (more && submitted - completed < batchWindow) {
+                    if (submitted == batchMaxItems) {
+                        more = false;
+                        writeLine(out, batchStopped(submitted,
+                            "Batch is limited to " + batchMaxItems + " entries, the remaining entries were not issued"));
+                        break;
+                    }
+                    int index = submitted++;
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> person = objectMapper.readValue(parser, Map.class);
+                    // Rejected by a busy pool, the item runs on this thread: the caller slows down instead of failing
+                    inFlight.add(completionService.submit(() -> issueBatchItem(index, person)));
+                    JsonToken next = parser.nextToken();
+                    more = next == JsonToken.START_OBJECT;
+                    if (!more && next != JsonToken.END_ARRAY) {
+                        writeLine(out, batchStopped(submitted, "Entry is not a JSON object, the remaining entries were not issued"));
+                    }
+                }
+                if (completed == submitted) {
+                    break;
+                }
+                
+                Future<Map<String, Object>> done = completionService.take();
+                inFlight.remove(done);
+                completed++;
+                writeLine(out, done.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch generation failed", e.getCause());
+        } catch (CancellationException e) {
+            throw new IOException("Batch generation cancelled by shutdown", e);
+        } finally {
+            // Client went away or the batch failed: stop rendering what is still queued
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+    
+    private void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+        out.flush();
+    }
+    
+    private static Map<String, Object> batchStopped(int index, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        result.put("success", false);
+        result.put("message", message);
+        return result;
+    }
+    
+    private Map<String, Object> issueBatchItem(int index, Map<String, Object> person) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        
+        try {
+            // Batch renders bypass the image cache so a large import does not evict hot badges
+            result.put("qrCode", createQRCode(person, false));
+            result.put("success", true);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        return result;
+    }
+    
     private String generateQRCodeId(String personType) {
         String prefix = personType.equals("host") ? "HOST" : "WORK";
-        int randomNum = ThreadLocalRandom.current().nextInt(1000, 9999);
-        return prefix + String.format("%04d", randomNum);
+        return qrCodeIdGenerator.nextCode(prefix);
     }
     
-    private String generateQRCodeUrl(String qrCodeId) {
+    private String generateQRCodeUrl(String qrContent, boolean cacheImage) {
         try {
-            // Create the QR code content - URL to access the QR code details
-            String qrContent = "http://ec2-13-49-68-126.eu-north-1.compute.amazonaws.com/qr/" + qrCodeId;
-            
             // Generate QR code image
-            byte[] qrCodeImage = generateQRCodeImage(qrContent, 300, 300);
+            byte[] qrCodeImage = cacheImage
+                ? renderCachedQRCodeImage(qrContent)
+                : generateQRCodeImage(qrContent, QR_IMAGE_SIZE, QR_IMAGE_SIZE);
             
             // Convert to base64 data URL
             String base64Image = Base64.getEncoder().encodeToString(qrCodeImage);
@@ -307,24 +604,34 @@ public class QRCodeController {
         }
     }
     
-    private byte[] generateQRCodeImage(String content, int width, int height) throws WriterException, Exception {
-        // Set up QR code generation parameters
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        hints.put(EncodeHintType.MARGIN, 1);
-        
-        // Generate QR code matrix
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height, hints);
-        
-        // Convert to image
-        BufferedImage bufferedImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-        
-        // Convert to byte array
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(bufferedImage, "PNG", outputStream);
-        return outputStream.toByteArray();
+    private void trackValidity(Map<String, Object> qrCode) {
+        QrCodeIndex.Kind kind = "host".equals(qrCode.get("personType")) ? QrCodeIndex.Kind.HOST : QrCodeIndex.Kind.WORKER;
+        qrExpiryScheduler.track((String) qrCode.get("qrCodeId"), kind,
+            (LocalDateTime) qrCode.get("validFrom"), (LocalDateTime) qrCode.get("validTo"), false);
+    }
+    
+    // The QR content is the access URL, ending in the signed token when the code has one
+    private String qrContent(String qrCodeId) {
+        Map<String, Object> qrCode = QR_CODES_DATABASE.get(qrCodeId);
+        return QR_ACCESS_BASE_URL + (qrCode != null ? contentId(qrCodeId, qrCode) : qrCodeId);
+    }
+    
+    private static String contentId(String qrCodeId, Map<String, Object> qrCode) {
+        Object signedToken = qrCode.get("signedToken");
+        return signedToken != null ? (String) signedToken : qrCodeId;
+    }
+    
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : Long.MAX_VALUE;
+    }
+    
+    private byte[] renderCachedQRCodeImage(String content) throws Exception {
+        return qrImageCache.getOrRender(content, QR_IMAGE_SIZE, QR_IMAGE_SIZE, QR_ERROR_CORRECTION,
+            () -> generateQRCodeImage(content, QR_IMAGE_SIZE, QR_IMAGE_SIZE));
+    }
+    
+    private byte[] generateQRCodeImage(String content, int width, int height) throws WriterException {
+        return qrImageRenderer.renderPng(content, width, height, QR_ERROR_CORRECTION);
     }
     
     private static void createMockQRCode(String id, String type, String name, String org) {
@@ -339,9 +646,10 @@ public class QRCodeController {
         qrCode.put("validFrom", LocalDateTime.now().minusHours(1));
         qrCode.put("validTo", LocalDateTime.now().plusDays(7));
         qrCode.put("status", "active");
+        qrCode.put("currentStatus", QrCodeStatus.ACTIVE.getLabel());
         qrCode.put("createdAt", LocalDateTime.now().minusHours(2));
         qrCode.put("accessCount", 0);
         
-        QR_CODES_DATABASE.put(id, qrCode);
+        store(qrCode);
     }
 }
\ No newline at end of file
@@ -1,23 +1,95 @@
 package com.securaccess.enterprise.controllers;
 
+import com.securaccess.enterprise.config.Measured;
+import com.securaccess.enterprise.services.AccessAnomalyDetector;
+import com.securaccess.enterprise.services.AccessCounters;
+import com.securaccess.enterprise.services.AccessEvent;
+import com.securaccess.enterprise.services.AccessEventStream;
+import com.securaccess.enterprise.services.AccessJournal;
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import com.securaccess.enterprise.services.AccessLogExportService;
+import com.securaccess.enterprise.services.AccessLogIngestionService;
+import com.securaccess.enterprise.services.AccessLogPartitionManager;
+import com.securaccess.enterprise.services.AccessLogPartitionRouter;
+import com.securaccess.enterprise.services.ConcurrentRingBuffer;
+import com.securaccess.enterprise.services.KeysetCursor;
+import com.securaccess.enterprise.services.OccupancyTracker;
+import com.securaccess.enterprise.services.QrCodeBloomFilter;
+import com.securaccess.enterprise.services.QrCodeIndex;
+import com.securaccess.enterprise.services.SignedQrTokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/staff")
 @CrossOrigin(origins = "*")
 public class StaffController {
 
+    @Autowired
+    private QrCodeBloomFilter qrCodeBloomFilter;
+
+    @Autowired
+    private SignedQrTokenService signedQrTokenService;
+
+    @Autowired
+    private AccessLogIngestionService accessLogIngestionService;
+
+    @Autowired
+    private AccessLogPartitionRouter accessLogPartitionRouter;
+
+    @Autowired
+    private AccessLogPartitionManager accessLogPartitionManager;
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Autowired
+    private AccessCounters accessCounters;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    @Autowired
+    private AccessEventStream accessEventStream;
+    
+    @Autowired
+    private AccessJournal accessJournal;
+    
+    @Autowired
+    private AccessLogExportService accessLogExportService;
+    
+    @Autowired
+    private AccessAnomalyDetector accessAnomalyDetector;
+
     // Mock staff database
     private static final Map<String, Map<String, Object>> STAFF_DATABASE = new HashMap<>();
     
-    // Mock access logs
-    private static final List<Map<String, Object>> ACCESS_LOGS = new ArrayList<>();
+    private static final DateTimeFormatter LOG_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    private static final int MAX_PAGE_SIZE = 200;
+    // Open ends of the keyset range when the client gives neither a cursor nor a date
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    // Most recent access logs, written by every scanner concurrently; older ones are in access_logs
+    private final ConcurrentRingBuffer<Map<String, Object>> recentAccessLogs;
     
     static {
         // Initialize mock staff
@@ -55,6 +127,10 @@ public class StaffController {
         STAFF_DATABASE.put("ADMIN001", staff3);
     }
 
+    public StaffController(@Value("${app.access-log.recent-capacity:1000}") int recentCapacity) {
+        this.recentAccessLogs = new ConcurrentRingBuffer<>(recentCapacity);
+    }
+    
     @PostMapping("/login")
     public ResponseEntity<Map<String, Object>> staffLogin(@RequestBody Map<String, String> credentials) {
         String staffId = credentials.get("staffId");
@@ -105,9 +181,35 @@ public class StaffController {
     }
     
     @GetMapping("/qr/{qrCodeId}")
-    public ResponseEntity<Map<String, Object>> getQRCodeDetails(@PathVariable String qrCodeId) {
+    @Measured("qr_code_details")
+    public ResponseEntity<Map<String, Object>> getQRCodeDetails(@PathVariable String qrCodeId,
+                                                                @RequestParam(required = false) String zone) {
         Map<String, Object> response = new HashMap<>();
         
+        // A signed token answers the scan by itself, the code never reaches a lookup
+        if (signedQrTokenService.isToken(qrCodeId)) {
+            SignedQrTokenService.Verification verification = signedQrTokenService.verify(qrCodeId, System.currentTimeMillis());
+            if (!verification.valid()) {
+                recordDenied(verification.claims() != null ? verification.claims().code() : qrCodeId, zone, verification.reason());
+            }
+            if (verification.claims() == null) {
+                response.put("success", false);
+                response.put("message", "QR code not found or invalid");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("success", true);
+            response.put("data", signedQRDetails(verification));
+            return ResponseEntity.ok(response);
+        }
+        
+        // Codes that were never issued are turned away without any lookup
+        if (!qrCodeBloomFilter.mightBeIssued(qrCodeId)) {
+            recordDenied(qrCodeId, zone, "unknown_code");
+            response.put("success", false);
+            response.put("message", "QR code not found or invalid");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        
         // Mock QR code data - in real app, fetch from database
         Map<String, Object> qrDetails = generateMockQRDetails(qrCodeId);
         
@@ -116,13 +218,20 @@ public class StaffController {
             response.put("data", qrDetails);
             return ResponseEntity.ok(response);
         } else {
+            recordDenied(qrCodeId, zone, "unknown_code");
             response.put("success", false);
             response.put("message", "QR code not found or invalid");
             return ResponseEntity.notFound().build();
         }
     }
     
+    // Failed scans reach the anomaly detector, where bursts of them raise an alert, but are not logged
+    private void recordDenied(String qrCodeId, String zone, String reason) {
+        accessLogIngestionService.announceDenied(AccessEvent.denied(qrCodeId, zone, reason, LocalDateTime.now()));
+    }
+    
     @PostMapping("/access/log")
+    @Measured("log_access")
     public ResponseEntity<Map<String, Object>> logAccess(@RequestBody Map<String, Object> accessData) {
         Map<String, Object> response = new HashMap<>();
         
@@ -133,6 +242,8 @@ public class StaffController {
             String staffId = (String) accessData.get("staffId");
             String personName = (String) accessData.get("personName");
             String zone = (String) accessData.get("zone");
+            // Scanners report refused entries too; absent means the entry was granted
+            boolean success = !Boolean.FALSE.equals(accessData.get("success"));
             
             if (qrCodeId == null || action == null || staffId == null) {
                 response.put("success", false);
@@ -140,6 +251,18 @@ public class StaffController {
                 return ResponseEntity.badRequest().body(response);
             }
             
+            LocalDateTime timestamp = LocalDateTime.now();
+            
+            // Acknowledged once queued, the row is written by the ingestion pipeline
+            AccessLogIngestionService.Result result = accessLogIngestionService.submit(new AccessEvent(
+                qrCodeId, null, personName, action, null, zone, staffId, success,
+                (String) accessData.get("overrideReason"), timestamp));
+            if (result == AccessLogIngestionService.Result.REJECTED) {
+                response.put("success", false);
+                response.put("message", "Access log queue is full, please retry");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+            
             // Create access log entry
             Map<String, Object> logEntry = new HashMap<>();
             logEntry.put("id", System.currentTimeMillis());
@@ -149,17 +272,14 @@ public class StaffController {
             logEntry.put("zone", zone);
             logEntry.put("staffId", staffId);
             logEntry.put("staffName", getStaffName(staffId));
-            logEntry.put("timestamp", LocalDateTime.now());
+            logEntry.put("timestamp", timestamp);
+            logEntry.put("formattedTimestamp", timestamp.format(LOG_TIMESTAMP_FORMAT));
             logEntry.put("notes", accessData.get("notes"));
             logEntry.put("overrideReason", accessData.get("overrideReason"));
+            logEntry.put("success", success);
             
-            // Add to logs
-            ACCESS_LOGS.add(0, logEntry); // Add to beginning for recent first
-            
-            // Keep only last 1000 entries
-            if (ACCESS_LOGS.size() > 1000) {
-                ACCESS_LOGS.subList(1000, ACCESS_LOGS.size()).clear();
-            }
+            // Entries are complete before publication and never modified afterwards
+            recentAccessLogs.add(logEntry);
             
             response.put("success", true);
             response.put("message", "Access logged successfully");
@@ -180,40 +300,34 @@ public class StaffController {
             @RequestParam(defaultValue = "50") int size,
             @RequestParam(required = false) String staffId,
             @RequestParam(required = false) String action,
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String cursor) {
+        
+        // Any cursor, even empty for the first page, switches to keyset paging over the full history
+        if (cursor != null) {
+            return getAccessLogPage(cursor, size, staffId, action, date);
+        }
         
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<Map<String, Object>> filteredLogs = new ArrayList<>(ACCESS_LOGS);
-            
-            // Apply filters
-            if (staffId != null && !staffId.isEmpty()) {
-                filteredLogs.removeIf(log -> !staffId.equals(log.get("staffId")));
-            }
-            
-            if (action != null && !action.isEmpty()) {
-                filteredLogs.removeIf(log -> !action.equals(log.get("action")));
-            }
-            
-            if (date != null && !date.isEmpty()) {
-                filteredLogs.removeIf(log -> {
-                    LocalDateTime logTime = (LocalDateTime) log.get("timestamp");
-                    return !logTime.toLocalDate().toString().equals(date);
-                });
-            }
+            // Filters are applied during the lock-free walk, newest first
+            List<Map<String, Object>> filteredLogs = new ArrayList<>();
+            recentAccessLogs.forEachNewestFirst(log -> {
+                if ((staffId == null || staffId.isEmpty() || staffId.equals(log.get("staffId")))
+                        && (action == null || action.isEmpty() || action.equals(log.get("action")))
+                        && (date == null || date.isEmpty()
+                            || ((LocalDateTime) log.get("timestamp")).toLocalDate().toString().equals(date))) {
+                    filteredLogs.add(log);
+                }
+                return true;
+            });
             
             // Pagination
-            int startIndex = page * size;
+            int startIndex = Math.min(page * size, filteredLogs.size());
             int endIndex = Math.min(startIndex + size, filteredLogs.size());
             List<Map<String, Object>> pageData = filteredLogs.subList(startIndex, endIndex);
             
-            // Format timestamps for response
-            pageData.forEach(log -> {
-                LocalDateTime timestamp = (LocalDateTime) log.get("timestamp");
-                log.put("formattedTimestamp", timestamp.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
-            });
-            
             response.put("success", true);
             response.put("data", pageData);
             response.put("pagination", Map.of(
@@ -232,48 +346,294 @@ public class StaffController {
         }
     }
     
-    @GetMapping("/dashboard/stats")
-    public ResponseEntity<Map<String, Object>> getDashboardStats() {
+    // Live access events and counter updates for dashboards, instead of polling logs and stats
+    @GetMapping(value = "/access/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAccessEvents() {
+        try {
+            return ResponseEntity.ok(accessEventStream.subscribe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    @GetMapping("/access/stream/stats")
+    public ResponseEntity<Map<String, Object>> getStreamStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("stats", accessEventStream.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/access/journal/stats")
+    public ResponseEntity<Map<String, Object>> getJournalStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("stats", accessJournal.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/access/journal/replay")
+    public ResponseEntity<Map<String, Object>> replayJournal() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (!accessJournal.isEnabled()) {
+            response.put("success", false);
+            response.put("message", "Access journal is disabled");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            long replayed = accessLogIngestionService.replayJournal();
+            response.put("success", true);
+            response.put("replayed", replayed);
+            response.put("message", replayed + " journaled accesses replayed");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Journal replay failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    @GetMapping("/access/ingestion/stats")
+    public ResponseEntity<Map<String, Object>> getIngestionStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("stats", accessLogIngestionService.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    private ResponseEntity<Map<String, Object>> getAccessLogPage(String cursor, int size, String staffId,
+                                                                 String action, String date) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            LocalDateTime today = LocalDateTime.now().toLocalDate().atStartOfDay();
-            LocalDateTime tomorrow = today.plusDays(1);
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            LocalDateTime beforeTime = LATEST;
+            long beforeId = Long.MAX_VALUE;
+            LocalDateTime notBefore = EARLIEST;
+            if (date != null && !date.isEmpty()) {
+                LocalDateTime day = LocalDate.parse(date).atStartOfDay();
+                beforeTime = day.plusDays(1);
+                notBefore = day;
+            }
+            if (!cursor.isEmpty()) {
+                KeysetCursor position = KeysetCursor.decode(cursor);
+                beforeTime = position.timestamp();
+                beforeId = position.numericId();
+            }
             
-            // Calculate today's stats
-            long todayCheckIns = ACCESS_LOGS.stream()
-                .filter(log -> {
-                    LocalDateTime timestamp = (LocalDateTime) log.get("timestamp");
-                    return timestamp.isAfter(today) && timestamp.isBefore(tomorrow) 
-                           && "check-in".equals(log.get("action"));
-                })
-                .count();
-                
-            long todayCheckOuts = ACCESS_LOGS.stream()
-                .filter(log -> {
-                    LocalDateTime timestamp = (LocalDateTime) log.get("timestamp");
-                    return timestamp.isAfter(today) && timestamp.isBefore(tomorrow) 
-                           && "check-out".equals(log.get("action"));
-                })
-                .count();
-                
-            long todayOverrides = ACCESS_LOGS.stream()
-                .filter(log -> {
-                    LocalDateTime timestamp = (LocalDateTime) log.get("timestamp");
-                    return timestamp.isAfter(today) && timestamp.isBefore(tomorrow) 
-                           && "override".equals(log.get("action"));
-                })
-                .count();
+            // One extra row tells whether there is a next page without counting the rest
+            List<AccessLog> rows = accessLogRepository.findPageBefore(beforeTime, beforeId, notBefore,
+                staffId == null || staffId.isEmpty() ? null : staffId,
+                action == null || action.isEmpty() ? null : action,
+                Limit.of(pageSize + 1));
+            boolean hasMore = rows.size() > pageSize;
+            List<AccessLog> page = hasMore ? rows.subList(0, pageSize) : rows;
             
-            // Current occupancy (check-ins minus check-outs)
-            long currentOccupancy = todayCheckIns - todayCheckOuts;
+            List<Map<String, Object>> data = new ArrayList<>(page.size());
+            page.forEach(log -> data.add(toLogEntry(log)));
+            
+            String nextCursor = null;
+            if (hasMore) {
+                AccessLog last = page.get(page.size() - 1);
+                nextCursor = new KeysetCursor(last.getTimestamp(), String.valueOf(last.getId())).encode();
+            }
+            
+            response.put("success", true);
+            response.put("data", data);
+            response.put("size", pageSize);
+            response.put("nextCursor", nextCursor);
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put("success", false);
+            response.put("message", "Invalid cursor or date");
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error retrieving access logs: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    // Persisted history, older than what the recent log buffer keeps
+    @GetMapping("/access/history")
+    public ResponseEntity<Map<String, Object>> getAccessHistory(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String zone) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            LocalDateTime startTime = LocalDateTime.parse(from);
+            LocalDateTime endTime = LocalDateTime.parse(to);
+            List<AccessLog> logs = zone == null || zone.isEmpty()
+                ? accessLogPartitionRouter.findBetween(startTime, endTime)
+                : accessLogPartitionRouter.findByZoneBetween(zone, startTime, endTime);
+            
+            List<Map<String, Object>> data = new ArrayList<>(logs.size());
+            logs.forEach(log -> data.add(toLogEntry(log)));
+            
+            response.put("success", true);
+            response.put("data", data);
+            response.put("total", data.size());
+            return ResponseEntity.ok(response);
+            
+        } catch (DateTimeParseException e) {
+            response.put("success", false);
+            response.put("message", "Dates must be ISO-8601, e.g. 2024-01-31T08:00:00");
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error retrieving access history: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    // Any range as CSV, read through a database cursor and written as it is read; gzipped when the
+    // client accepts it. Declared as StreamingResponseBody so Spring streams it, errors included
+    @GetMapping("/access/export")
+    public ResponseEntity<StreamingResponseBody> exportAccessLogs(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String zone,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        
+        LocalDateTime startTime;
+        LocalDateTime endTime;
+        try {
+            startTime = LocalDateTime.parse(from);
+            endTime = LocalDateTime.parse(to);
+        } catch (DateTimeParseException e) {
+            return exportRejected("Dates must be ISO-8601, e.g. 2024-01-31T08:00:00");
+        }
+        // Checked before the response is committed, a started stream can only be cut short
+        if (!endTime.isAfter(startTime)) {
+            return exportRejected("'to' must be after 'from'");
+        }
+        
+        String zoneFilter = zone == null || zone.isEmpty() ? null : zone;
+        boolean gzip = acceptsGzip(acceptEncoding);
+        
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 1 << 16);
+                accessLogExportService.exportCsv(startTime, endTime, zoneFilter, compressed);
+                compressed.finish();
+            } else {
+                accessLogExportService.exportCsv(startTime, endTime, zoneFilter, out);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("access-logs-" + startTime.toLocalDate() + "-" + endTime.toLocalDate() + ".csv")
+                .build()
+                .toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+    
+    private static ResponseEntity<StreamingResponseBody> exportRejected(String message) {
+        byte[] json = ("{\"success\":false,\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> out.write(json));
+    }
+    
+    // gzip, or *, listed without q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(parameter.substring(2)) == 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static Map<String, Object> toLogEntry(AccessLog log) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", log.getId());
+        entry.put("qrCode", log.getQrCode());
+        entry.put("personId", log.getPersonId());
+        entry.put("personName", log.getPersonName());
+        entry.put("action", log.getAccessType());
+        entry.put("zone", log.getZone());
+        entry.put("staffId", log.getStaffId());
+        entry.put("success", log.getSuccess());
+        entry.put("timestamp", log.getTimestamp());
+        entry.put("formattedTimestamp", log.getTimestamp().format(LOG_TIMESTAMP_FORMAT));
+        return entry;
+    }
+    
+    @GetMapping("/access/partitions")
+    public ResponseEntity<Map<String, Object>> getPartitionStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("stats", accessLogPartitionManager.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/occupancy")
+    public ResponseEntity<Map<String, Object>> getOccupancy(@RequestParam(required = false) String zone) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("occupancy", occupancyTracker.snapshot(zone));
+        return ResponseEntity.ok(response);
+    }
+    
+    // Newest first; dashboards poll with after = the highest id they have, or follow /access/stream
+    @GetMapping("/alerts")
+    public ResponseEntity<Map<String, Object>> getAlerts(@RequestParam(defaultValue = "50") int limit,
+                                                         @RequestParam(defaultValue = "0") long after) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", accessAnomalyDetector.recentAlerts(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), after));
+        response.put("stats", accessAnomalyDetector.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/dashboard/stats")
+    public ResponseEntity<Map<String, Object>> getDashboardStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            // Maintained as each scan is accepted, this is a handful of counter reads
+            long todayCheckIns = accessCounters.countToday("check-in");
+            long todayCheckOuts = accessCounters.countToday("check-out");
+            long todayOverrides = accessCounters.countToday("override");
             
             Map<String, Object> stats = new HashMap<>();
             stats.put("todayCheckIns", todayCheckIns);
             stats.put("todayCheckOuts", todayCheckOuts);
             stats.put("todayOverrides", todayOverrides);
-            stats.put("currentOccupancy", Math.max(0, currentOccupancy));
-            stats.put("totalLogs", ACCESS_LOGS.size());
+            stats.put("currentOccupancy", occupancyTracker.getTotal());
+            stats.put("totalLogs", recentAccessLogs.size());
             stats.put("activeStaff", STAFF_DATABASE.size());
             
             response.put("success", true);
@@ -294,6 +654,19 @@ public class StaffController {
         return staff != null ? (String) staff.get("name") : "Unknown Staff";
     }
     
+    private Map<String, Object> signedQRDetails(SignedQrTokenService.Verification verification) {
+        SignedQrTokenService.Claims claims = verification.claims();
+        Map<String, Object> details = new HashMap<>();
+        details.put("qrCodeId", claims.code());
+        details.put("role", claims.kind() == QrCodeIndex.Kind.HOST ? "host" : "worker");
+        details.put("zone", claims.zone());
+        details.put("validFrom", claims.validFrom());
+        details.put("validTo", claims.validTo());
+        details.put("status", verification.valid() ? "valid" : verification.reason());
+        details.put("verifiedBy", "signature");
+        return details;
+    }
+    
     private Map<String, Object> generateMockQRDetails(String qrCodeId) {
         // Mock QR code details - in real app, fetch from database
         Map<String, Object> details = new HashMap<>();
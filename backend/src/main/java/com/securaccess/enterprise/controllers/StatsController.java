@@ -1,9 +1,15 @@
 package com.securaccess.enterprise.controllers;
 
+import com.securaccess.enterprise.services.AccessHeatmap;
+import com.securaccess.enterprise.services.AccessRollupService;
+import com.securaccess.enterprise.services.VisitorSketchService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @RestController
@@ -11,6 +17,18 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class StatsController {
     
+    private static final String[] DAY_LABELS = {"Lun", "Mar", "Mer", "Jeu", "Ven", "Sam", "Dim"};
+    private static final String[] DAY_NAMES = {"Lundi", "Mardi", "Mercredi", "Jeudi", "Vendredi", "Samedi", "Dimanche"};
+    
+    @Autowired
+    private AccessRollupService accessRollupService;
+    
+    @Autowired
+    private VisitorSketchService visitorSketchService;
+    
+    @Autowired
+    private AccessHeatmap accessHeatmap;
+    
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         try {
@@ -23,9 +41,21 @@ public class StatsController {
             stats.put("activeHosts", 6);
             stats.put("totalQrCodes", 156);
             stats.put("activeQrCodes", 23);
-            stats.put("todayAccesses", 67);
-            stats.put("weeklyAccesses", 432);
-            stats.put("monthlyAccesses", 1856);
+            
+            // Read from the daily rollups, at most a month of rows
+            LocalDate today = accessRollupService.today();
+            Map<LocalDate, Long> daily = accessRollupService.dailyTotals(today.minusDays(29), today.plusDays(1));
+            long weekly = 0;
+            long monthly = 0;
+            for (Map.Entry<LocalDate, Long> day : daily.entrySet()) {
+                monthly += day.getValue();
+                if (day.getKey().isAfter(today.minusDays(7))) {
+                    weekly += day.getValue();
+                }
+            }
+            stats.put("todayAccesses", daily.get(today));
+            stats.put("weeklyAccesses", weekly);
+            stats.put("monthlyAccesses", monthly);
             
             // Recent activities
             List<Map<String, Object>> recentActivities = new ArrayList<>();
@@ -106,63 +136,46 @@ public class StatsController {
         try {
             Map<String, Object> accessStats = new HashMap<>();
             
-            // Mock access statistics based on period
-            List<Map<String, Object>> chartData = new ArrayList<>();
+            // Everything below reads pre-aggregated rollup rows, never access_logs
+            LocalDate today = accessRollupService.today();
+            int days = "month".equals(period) ? 30 : 7;
+            LocalDate from = today.minusDays(days - 1);
+            LocalDate to = today.plusDays(1);
             
-            if ("week".equals(period)) {
-                String[] days = {"Lun", "Mar", "Mer", "Jeu", "Ven", "Sam", "Dim"};
-                int[] accesses = {45, 62, 58, 71, 69, 23, 15};
-                
-                for (int i = 0; i < days.length; i++) {
-                    Map<String, Object> dataPoint = new HashMap<>();
-                    dataPoint.put("label", days[i]);
-                    dataPoint.put("value", accesses[i]);
-                    dataPoint.put("date", LocalDateTime.now().minusDays(6-i).toLocalDate().toString());
-                    chartData.add(dataPoint);
-                }
+            List<Map<String, Object>> chartData = new ArrayList<>();
+            long total = 0;
+            long peak = 0;
+            LocalDate peakDay = null;
+            for (Map.Entry<LocalDate, Long> day : accessRollupService.dailyTotals(from, to).entrySet()) {
+                LocalDate date = day.getKey();
+                long value = day.getValue();
                 
-                accessStats.put("total", 343);
-                accessStats.put("average", 49);
-                accessStats.put("peak", 71);
-                accessStats.put("peakDay", "Jeudi");
+                Map<String, Object> dataPoint = new HashMap<>();
+                dataPoint.put("label", days == 7 ? DAY_LABELS[date.getDayOfWeek().getValue() - 1] : String.valueOf(date.getDayOfMonth()));
+                dataPoint.put("value", value);
+                dataPoint.put("date", date.toString());
+                chartData.add(dataPoint);
                 
-            } else if ("month".equals(period)) {
-                for (int i = 1; i <= 30; i++) {
-                    Map<String, Object> dataPoint = new HashMap<>();
-                    dataPoint.put("label", String.valueOf(i));
-                    dataPoint.put("value", 30 + (int)(Math.random() * 50));
-                    dataPoint.put("date", LocalDateTime.now().minusDays(30-i).toLocalDate().toString());
-                    chartData.add(dataPoint);
+                total += value;
+                if (peakDay == null || value > peak) {
+                    peak = value;
+                    peakDay = date;
                 }
-                
-                accessStats.put("total", 1247);
-                accessStats.put("average", 41);
-                accessStats.put("peak", 78);
-                accessStats.put("peakDay", "15");
             }
             
+            accessStats.put("total", total);
+            accessStats.put("average", total / days);
+            accessStats.put("peak", peak);
+            accessStats.put("peakDay", days == 7 ? DAY_NAMES[peakDay.getDayOfWeek().getValue() - 1] : String.valueOf(peakDay.getDayOfMonth()));
             accessStats.put("chartData", chartData);
-            accessStats.put("period", period);
-            
-            // Access by type
-            Map<String, Object> accessTypes = new HashMap<>();
-            accessTypes.put("entry", 178);
-            accessTypes.put("exit", 165);
-            accessStats.put("accessTypes", accessTypes);
-            
-            // Most active hours
-            List<Map<String, Object>> hourlyStats = new ArrayList<>();
-            int[] hours = {8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18};
-            int[] counts = {12, 45, 38, 42, 67, 23, 55, 41, 38, 52, 8};
-            
-            for (int i = 0; i < hours.length; i++) {
-                Map<String, Object> hourStat = new HashMap<>();
-                hourStat.put("hour", String.format("%02d:00", hours[i]));
-                hourStat.put("count", counts[i]);
-                hourlyStats.add(hourStat);
-            }
+            accessStats.put("period", days == 7 ? "week" : "month");
+            
+            // Access by type and by zone
+            accessStats.put("accessTypes", accessRollupService.totalsByAccessType(from, to));
+            accessStats.put("zones", accessRollupService.totalsByZone(from, to));
             
-            accessStats.put("hourlyStats", hourlyStats);
+            // Accesses per hour of the day, index 0 is 00:00-01:00
+            accessStats.put("hourlyStats", accessRollupService.hourOfDayTotals(from, to));
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -175,6 +188,122 @@ public class StatsController {
         }
     }
     
+    // Entry scans by hour of the week, one array of 168 counts per zone, index (day * 24 + hour)
+    // with Monday as day 0. Without dates it covers the last 168 hours, kept live in memory.
+    @GetMapping("/heatmap")
+    public ResponseEntity<Map<String, Object>> getHeatmap(@RequestParam(value = "from", required = false) String from,
+                                                          @RequestParam(value = "to", required = false) String to,
+                                                          @RequestParam(value = "zone", required = false) String zone) {
+        try {
+            Map<String, int[]> zones;
+            Map<String, Object> heatmap = new HashMap<>();
+            if (from == null || to == null) {
+                zones = accessHeatmap.lastWeek();
+                heatmap.put("live", true);
+            } else {
+                LocalDate fromDay = LocalDate.parse(from);
+                LocalDate toDay = LocalDate.parse(to);
+                if (!fromDay.isBefore(toDay)) {
+                    throw new IllegalArgumentException("from must be before to");
+                }
+                zones = accessHeatmap.between(fromDay, toDay);
+                heatmap.put("live", false);
+                heatmap.put("from", fromDay.toString());
+                heatmap.put("to", toDay.toString());
+            }
+            if (zone != null) {
+                zones.keySet().retainAll(Set.of(zone));
+            }
+            
+            heatmap.put("dayLabels", DAY_LABELS);
+            heatmap.put("zones", zones);
+            heatmap.put("total", AccessHeatmap.total(zones));
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("heatmap", heatmap);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            return createErrorResponse("Erreur lors du calcul de la carte de fréquentation");
+        }
+    }
+    
+    // Distinct people entering each zone, from HyperLogLog sketches: every figure is an estimate
+    // with the returned relative standard error (about 1.6%, under 5% for 99.7% of answers)
+    @GetMapping("/visitors")
+    public ResponseEntity<Map<String, Object>> getVisitorStats(@RequestParam(value = "period", defaultValue = "week") String period,
+                                                               @RequestParam(value = "zone", required = false) String zone) {
+        try {
+            Map<String, Object> visitorStats = new HashMap<>();
+            
+            LocalDate today = accessRollupService.today();
+            int days = "month".equals(period) ? 30 : 7;
+            LocalDate from = today.minusDays(days - 1);
+            LocalDate to = today.plusDays(1);
+            
+            List<Map<String, Object>> chartData = new ArrayList<>();
+            for (Map.Entry<LocalDate, Long> day : visitorSketchService.dailyVisitors(from, to, zone).entrySet()) {
+                LocalDate date = day.getKey();
+                Map<String, Object> dataPoint = new HashMap<>();
+                dataPoint.put("label", days == 7 ? DAY_LABELS[date.getDayOfWeek().getValue() - 1] : String.valueOf(date.getDayOfMonth()));
+                dataPoint.put("value", day.getValue());
+                dataPoint.put("date", date.toString());
+                chartData.add(dataPoint);
+            }
+            
+            // People seen on several days count once per week and once for the period
+            List<Map<String, Object>> weeklyData = new ArrayList<>();
+            for (Map.Entry<LocalDate, Long> week : visitorSketchService.weeklyVisitors(from, to, zone).entrySet()) {
+                Map<String, Object> dataPoint = new HashMap<>();
+                dataPoint.put("weekStart", week.getKey().toString());
+                dataPoint.put("value", week.getValue());
+                weeklyData.add(dataPoint);
+            }
+            
+            visitorStats.put("total", visitorSketchService.distinctVisitors(from, to, zone));
+            visitorStats.put("chartData", chartData);
+            visitorStats.put("weeklyData", weeklyData);
+            visitorStats.put("zones", visitorSketchService.visitorsByZone(from, to));
+            visitorStats.put("zone", zone);
+            visitorStats.put("period", days == 7 ? "week" : "month");
+            visitorStats.put("relativeError", visitorSketchService.relativeError());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("visitorStats", visitorStats);
+            response.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return createErrorResponse("Erreur lors de la récupération des statistiques de visiteurs");
+        }
+    }
+    
+    // Recomputes the rollups of closed days from access_logs, e.g. after importing history
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<Map<String, Object>> backfillRollups(@RequestParam String from, @RequestParam String to) {
+        try {
+            int days = accessRollupService.backfill(LocalDate.parse(from), LocalDate.parse(to));
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("days", days);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            return createErrorResponse("Erreur lors du recalcul des statistiques");
+        }
+    }
+    
     private ResponseEntity<Map<String, Object>> createErrorResponse(String message) {
         Map<String, Object> error = new HashMap<>();
         error.put("success", false);
@@ -1,5 +1,9 @@
 package com.securaccess.enterprise.controllers;
 
+import com.securaccess.enterprise.services.AccessEvent;
+import com.securaccess.enterprise.services.AccessLogIngestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
@@ -11,6 +15,9 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class WorkerController {
     
+    @Autowired
+    private AccessLogIngestionService accessLogIngestionService;
+    
     // Mock data storage
     private static Map<String, Map<String, Object>> workersDatabase = new HashMap<>();
     private static Long nextId = 3L;
@@ -225,15 +232,40 @@ public class WorkerController {
     @PostMapping("/{workerId}/access-log")
     public ResponseEntity<Map<String, Object>> logAccess(@PathVariable String workerId, @RequestBody Map<String, Object> accessData) {
         try {
-            // Mock access logging
+            // Checked before queueing: a row the writer cannot insert would be acknowledged, then dropped
+            String type = (String) accessData.get("type");
+            if (type == null || type.isBlank() || type.length() > 20) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("error", "Champ requis manquant ou invalide : type (entry ou exit)");
+                return ResponseEntity.badRequest().body(error);
+            }
+            
+            // Scanners report refused entries too; absent means the entry was granted
+            boolean success = !Boolean.FALSE.equals(accessData.get("success"));
+            LocalDateTime timestamp = LocalDateTime.now();
+            Map<String, Object> worker = workersDatabase.get(workerId);
+            
+            // Acknowledged once queued, the row is written by the ingestion pipeline
+            AccessLogIngestionService.Result result = accessLogIngestionService.submit(new AccessEvent(
+                (String) accessData.get("qrCode"), workerId, worker != null ? (String) worker.get("name") : null,
+                type, (String) accessData.get("location"), (String) accessData.get("zone"),
+                null, success, null, timestamp));
+            if (result == AccessLogIngestionService.Result.REJECTED) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("error", "File d'enregistrement des accès saturée, veuillez réessayer");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+            }
+            
             Map<String, Object> accessLog = new HashMap<>();
             accessLog.put("id", UUID.randomUUID().toString());
             accessLog.put("workerId", workerId);
-            accessLog.put("type", accessData.get("type")); // entry or exit
+            accessLog.put("type", type); // entry or exit
             accessLog.put("location", accessData.get("location"));
-            accessLog.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            accessLog.put("timestamp", timestamp.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             accessLog.put("qrCode", accessData.get("qrCode"));
-            accessLog.put("success", true);
+            accessLog.put("success", success);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -4,19 +4,31 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "access_logs")
+@Table(name = "access_logs", indexes = {
+    // Per-person history and per-zone reports seek on the leading column and read the time range in order
+    @Index(name = "idx_access_logs_worker_time", columnList = "worker_id, timestamp"),
+    @Index(name = "idx_access_logs_host_time", columnList = "host_id, timestamp"),
+    @Index(name = "idx_access_logs_location_time", columnList = "location, timestamp"),
+    @Index(name = "idx_access_logs_zone_time", columnList = "zone, timestamp"),
+    // Keyset pagination order
+    @Index(name = "idx_access_logs_time_id", columnList = "timestamp, id"),
+    @Index(name = "idx_access_logs_journal_seq", columnList = "journal_seq")
+})
 public class AccessLog {
     
+    // Pooled sequence: ids are handed out 50 at a time, so batched inserts need no round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "access_log_seq")
+    @SequenceGenerator(name = "access_log_seq", sequenceName = "access_logs_seq", allocationSize = 50)
     private Long id;
     
+    // No foreign key constraints: MySQL does not allow them on the partitioned table
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "worker_id")
+    @JoinColumn(name = "worker_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Worker worker;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "host_id")
+    @JoinColumn(name = "host_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Host host;
     
     @Column(nullable = false, length = 20)
@@ -37,6 +49,23 @@ public class AccessLog {
     @Column(length = 500)
     private String details;
     
+    // Scanner-side fields, also set for people that are not (yet) database rows
+    @Column(name = "person_id", length = 50)
+    private String personId;
+    
+    @Column(name = "person_name", length = 100)
+    private String personName;
+    
+    @Column(length = 100)
+    private String zone;
+    
+    @Column(name = "staff_id", length = 50)
+    private String staffId;
+    
+    // Position in the local access journal, lets recovery find journaled events that never got here
+    @Column(name = "journal_seq")
+    private Long journalSequence;
+    
     // Constructors
     public AccessLog() {
     }
@@ -139,4 +168,44 @@ public class AccessLog {
     public void setDetails(String details) {
         this.details = details;
     }
+    
+    public String getPersonId() {
+        return personId;
+    }
+    
+    public void setPersonId(String personId) {
+        this.personId = personId;
+    }
+    
+    public String getPersonName() {
+        return personName;
+    }
+    
+    public void setPersonName(String personName) {
+        this.personName = personName;
+    }
+    
+    public String getZone() {
+        return zone;
+    }
+    
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+    
+    public String getStaffId() {
+        return staffId;
+    }
+    
+    public void setStaffId(String staffId) {
+        this.staffId = staffId;
+    }
+    
+    public Long getJournalSequence() {
+        return journalSequence;
+    }
+    
+    public void setJournalSequence(Long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
 }
\ No newline at end of file
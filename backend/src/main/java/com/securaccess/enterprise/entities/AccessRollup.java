@@ -0,0 +1,97 @@
+package com.securaccess.enterprise.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Pre-aggregated access counts per hour or day, zone and access type. Buckets start on the site's
+// local clock; statistics read these rows instead of scanning access_logs.
+@Entity
+@Table(name = "access_rollups",
+    uniqueConstraints = @UniqueConstraint(name = "uk_access_rollups_bucket",
+        columnNames = {"granularity", "bucket_start", "zone", "access_type"}),
+    indexes = @Index(name = "idx_access_rollups_range", columnList = "granularity, bucket_start"))
+public class AccessRollup {
+
+    public enum Granularity { HOUR, DAY }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 5)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, length = 100)
+    private String zone;
+
+    @Column(name = "access_type", nullable = false, length = 20)
+    private String accessType;
+
+    @Column(name = "access_count", nullable = false)
+    private Long accessCount;
+
+    // Constructors
+    public AccessRollup() {
+    }
+
+    public AccessRollup(Granularity granularity, LocalDateTime bucketStart, String zone, String accessType, Long accessCount) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.zone = zone;
+        this.accessType = accessType;
+        this.accessCount = accessCount;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public String getAccessType() {
+        return accessType;
+    }
+
+    public void setAccessType(String accessType) {
+        this.accessType = accessType;
+    }
+
+    public Long getAccessCount() {
+        return accessCount;
+    }
+
+    public void setAccessCount(Long accessCount) {
+        this.accessCount = accessCount;
+    }
+}
@@ -1,9 +1,11 @@
 package com.securaccess.enterprise.entities;
 
+import com.securaccess.enterprise.services.QrCodeIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(QrCodeIndexListener.class)
 @Table(name = "qr_codes")
 public class QrCode {
     
@@ -37,6 +39,10 @@ public class QrCode {
     @Column(name = "date_utilisation")
     private LocalDateTime dateUtilisation;
     
+    // Rendered image lives in qr_code_images, see QrImageStore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+    
     // Constructors
     public QrCode() {}
     
@@ -76,6 +82,9 @@ public class QrCode {
     public LocalDateTime getDateUtilisation() { return dateUtilisation; }
     public void setDateUtilisation(LocalDateTime dateUtilisation) { this.dateUtilisation = dateUtilisation; }
     
+    public String getImageHash() { return imageHash; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
+    
     @PrePersist
     protected void onCreate() {
         dateCreation = LocalDateTime.now();
@@ -105,16 +114,4 @@ public class QrCode {
     public boolean isActif() {
         return actif;
     }
-    
-    @Lob
-    @Column(name = "image_base64")
-    private String imageBase64;
-    
-    public String getImageBase64() {
-        return imageBase64;
-    }
-    
-    public void setImageBase64(String imageBase64) {
-        this.imageBase64 = imageBase64;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.securaccess.enterprise.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Rendered QR images, addressed by the SHA-256 of the PNG bytes so identical images are stored once.
+// Kept out of the QR code rows: scans read narrow rows and only image requests touch this table.
+@Entity
+@Table(name = "qr_code_images")
+public class QrCodeImage {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(nullable = false)
+    private byte[] png;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Integer sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public QrCodeImage() {
+    }
+
+    public QrCodeImage(String hash, byte[] png) {
+        this.hash = hash;
+        this.png = png;
+        this.sizeBytes = png.length;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public byte[] getPng() {
+        return png;
+    }
+
+    public void setPng(byte[] png) {
+        this.png = png;
+    }
+
+    public Integer getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Integer sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,22 @@
+package com.securaccess.enterprise.entities;
+
+import java.time.LocalDateTime;
+
+// Position of a QR code in its validity window, kept current by QrExpiryScheduler
+public enum QrCodeStatus {
+    NOT_YET_VALID, ACTIVE, EXPIRED;
+
+    public String getLabel() {
+        return name().toLowerCase();
+    }
+
+    public static QrCodeStatus at(LocalDateTime validFrom, LocalDateTime validTo, LocalDateTime now) {
+        if (validFrom != null && now.isBefore(validFrom)) {
+            return NOT_YET_VALID;
+        }
+        if (validTo != null && now.isAfter(validTo)) {
+            return EXPIRED;
+        }
+        return ACTIVE;
+    }
+}
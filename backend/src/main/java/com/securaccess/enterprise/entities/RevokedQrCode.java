@@ -0,0 +1,59 @@
+package com.securaccess.enterprise.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A signed QR code that must keep failing verification until its validity ends: deactivated,
+// used or deleted. Signed tokens are checked without a lookup, so this table is the only record
+// of the revocation that survives a restart.
+@Entity
+@Table(name = "revoked_qr_codes", indexes = @Index(name = "idx_revoked_qr_codes_valid_to", columnList = "valid_to_millis"))
+public class RevokedQrCode {
+
+    // The numeric id carried in the token
+    @Id
+    @Column(name = "code_id")
+    private Long codeId;
+
+    // Epoch millis, Long.MAX_VALUE for codes without an end of validity
+    @Column(name = "valid_to_millis", nullable = false)
+    private Long validToMillis;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    // Constructors
+    public RevokedQrCode() {
+    }
+
+    public RevokedQrCode(Long codeId, Long validToMillis) {
+        this.codeId = codeId;
+        this.validToMillis = validToMillis;
+        this.revokedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public Long getCodeId() {
+        return codeId;
+    }
+
+    public void setCodeId(Long codeId) {
+        this.codeId = codeId;
+    }
+
+    public Long getValidToMillis() {
+        return validToMillis;
+    }
+
+    public void setValidToMillis(Long validToMillis) {
+        this.validToMillis = validToMillis;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
@@ -0,0 +1,69 @@
+package com.securaccess.enterprise.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// Serialized HyperLogLog of the people who entered a zone on one site day; weeks and months are
+// unions of these rows. Stored next to the access rollups and rebuilt with them.
+@Entity
+@Table(name = "visitor_sketches",
+    uniqueConstraints = @UniqueConstraint(name = "uk_visitor_sketches_day_zone", columnNames = {"sketch_day", "zone"}))
+public class VisitorSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sketch_day", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, length = 100)
+    private String zone;
+
+    // At most 1 + 2^16 * 6 / 8 bytes; 3 KB at the default precision, less while sparse
+    @Column(nullable = false, length = 49153)
+    private byte[] registers;
+
+    // Constructors
+    public VisitorSketch() {
+    }
+
+    public VisitorSketch(LocalDate day, String zone, byte[] registers) {
+        this.day = day;
+        this.zone = zone;
+        this.registers = registers;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+}
@@ -1,9 +1,11 @@
 package com.securaccess.enterprise.entities;
 
+import com.securaccess.enterprise.services.QrCodeIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(QrCodeIndexListener.class)
 @Table(name = "worker_qr_codes")
 public class WorkerQrCode {
     
@@ -33,9 +35,14 @@ public class WorkerQrCode {
     @Column(name = "used_at")
     private LocalDateTime usedAt;
     
-    @Lob
-    @Column(name = "image_base64")
-    private String imageBase64;
+    // Maintained by QrExpiryScheduler, reads never compare against the clock
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private QrCodeStatus status = QrCodeStatus.ACTIVE;
+    
+    // Rendered image lives in qr_code_images, see QrImageStore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
     
     // Constructors
     public WorkerQrCode() {
@@ -52,11 +59,11 @@ public class WorkerQrCode {
     
     // Business methods
     public boolean isActive() {
-        return isValid && !isUsed && !isExpired();
+        return isValid && !isUsed && status == QrCodeStatus.ACTIVE;
     }
     
     public boolean isExpired() {
-        return LocalDateTime.now().isAfter(expiresAt);
+        return status == QrCodeStatus.EXPIRED;
     }
     
     public void markAsUsed() {
@@ -74,6 +81,13 @@ public class WorkerQrCode {
         if (this.generatedAt == null) {
             this.generatedAt = LocalDateTime.now();
         }
+        this.status = QrCodeStatus.at(generatedAt, expiresAt, LocalDateTime.now());
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        // The validity window may have been moved
+        this.status = QrCodeStatus.at(generatedAt, expiresAt, LocalDateTime.now());
     }
     
     // Getters and setters
@@ -133,6 +147,14 @@ public class WorkerQrCode {
         this.isUsed = isUsed;
     }
     
+    public QrCodeStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(QrCodeStatus status) {
+        this.status = status;
+    }
+    
     public LocalDateTime getUsedAt() {
         return usedAt;
     }
@@ -141,11 +163,11 @@ public class WorkerQrCode {
         this.usedAt = usedAt;
     }
     
-    public String getImageBase64() {
-        return imageBase64;
+    public String getImageHash() {
+        return imageHash;
     }
     
-    public void setImageBase64(String imageBase64) {
-        this.imageBase64 = imageBase64;
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
     }
 }
\ No newline at end of file
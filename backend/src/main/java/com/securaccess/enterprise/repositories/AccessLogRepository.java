@@ -2,13 +2,18 @@ package com.securaccess.enterprise.repositories;
 
 import com.securaccess.enterprise.entities.AccessLog;
 import com.securaccess.enterprise.entities.Worker;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccessLogRepository extends JpaRepository<AccessLog, Long> {
@@ -17,32 +22,88 @@ public interface AccessLogRepository extends JpaRepository<AccessLog, Long> {
     
     List<AccessLog> findByWorkerId(Long workerId);
     
-    // @Query("SELECT al FROM AccessLog al WHERE al.accessTime BETWEEN :startTime AND :endTime")
-    // List<AccessLog> findByAccessTimeBetween(@Param("startTime") LocalDateTime startTime, 
-    //                                       @Param("endTime") LocalDateTime endTime);
+    // Single-table fallback, AccessLogPartitionRouter restricts these to the matching partitions when it can
+    @Query("SELECT al FROM AccessLog al WHERE al.timestamp BETWEEN :startTime AND :endTime ORDER BY al.timestamp")
+    List<AccessLog> findByAccessTimeBetween(@Param("startTime") LocalDateTime startTime,
+                                            @Param("endTime") LocalDateTime endTime);
     
-    // @Query("SELECT al FROM AccessLog al WHERE al.worker.id = :workerId AND al.accessTime BETWEEN :startTime AND :endTime")
-    // List<AccessLog> findByWorkerIdAndAccessTimeBetween(@Param("workerId") Long workerId,
-    //                                                  @Param("startTime") LocalDateTime startTime,
-    //                                                  @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT al FROM AccessLog al WHERE al.worker.id = :workerId AND al.timestamp BETWEEN :startTime AND :endTime ORDER BY al.timestamp")
+    List<AccessLog> findByWorkerIdAndAccessTimeBetween(@Param("workerId") Long workerId,
+                                                       @Param("startTime") LocalDateTime startTime,
+                                                       @Param("endTime") LocalDateTime endTime);
     
-    // @Query("SELECT al FROM AccessLog al WHERE al.zone = :zone AND al.accessTime BETWEEN :startTime AND :endTime")
-    // List<AccessLog> findByZoneAndAccessTimeBetween(@Param("zone") String zone,
-    //                                              @Param("startTime") LocalDateTime startTime,
-    //                                              @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT al FROM AccessLog al WHERE al.host.id = :hostId AND al.timestamp BETWEEN :startTime AND :endTime ORDER BY al.timestamp")
+    List<AccessLog> findByHostIdAndAccessTimeBetween(@Param("hostId") Long hostId,
+                                                     @Param("startTime") LocalDateTime startTime,
+                                                     @Param("endTime") LocalDateTime endTime);
     
-    // @Query("SELECT COUNT(al) FROM AccessLog al WHERE al.worker.id = :workerId AND al.accessTime BETWEEN :startTime AND :endTime")
-    // Long countAccessesByWorkerAndDateRange(@Param("workerId") Long workerId,
-    //                                      @Param("startTime") LocalDateTime startTime,
-    //                                      @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT al FROM AccessLog al WHERE al.location = :location AND al.timestamp BETWEEN :startTime AND :endTime ORDER BY al.timestamp")
+    List<AccessLog> findByLocationAndAccessTimeBetween(@Param("location") String location,
+                                                       @Param("startTime") LocalDateTime startTime,
+                                                       @Param("endTime") LocalDateTime endTime);
     
-    // @Query("SELECT al FROM AccessLog al WHERE al.worker.department = :department AND al.accessTime BETWEEN :startTime AND :endTime")
-    // List<AccessLog> findByDepartmentAndAccessTimeBetween(@Param("department") String department,
-    //                                                    @Param("startTime") LocalDateTime startTime,
-    //                                                    @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT al FROM AccessLog al WHERE al.zone = :zone AND al.timestamp BETWEEN :startTime AND :endTime ORDER BY al.timestamp")
+    List<AccessLog> findByZoneAndAccessTimeBetween(@Param("zone") String zone,
+                                                   @Param("startTime") LocalDateTime startTime,
+                                                   @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT COUNT(al) FROM AccessLog al WHERE al.worker.id = :workerId AND al.timestamp BETWEEN :startTime AND :endTime")
+    Long countAccessesByWorkerAndDateRange(@Param("workerId") Long workerId,
+                                           @Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT al FROM AccessLog al JOIN al.worker w WHERE w.department = :department AND al.timestamp BETWEEN :startTime AND :endTime ORDER BY al.timestamp")
+    List<AccessLog> findByDepartmentAndAccessTimeBetween(@Param("department") String department,
+                                                         @Param("startTime") LocalDateTime startTime,
+                                                         @Param("endTime") LocalDateTime endTime);
+    
+    // Keyset page, newest first: rows strictly before (beforeTime, beforeId) and not older than notBefore.
+    // Walks idx_access_logs_time_id backwards from the cursor, so every page costs the same.
+    @Query("SELECT al FROM AccessLog al WHERE (al.timestamp < :beforeTime OR (al.timestamp = :beforeTime AND al.id < :beforeId))"
+         + " AND al.timestamp >= :notBefore"
+         + " AND (:staffId IS NULL OR al.staffId = :staffId)"
+         + " AND (:action IS NULL OR al.accessType = :action)"
+         + " ORDER BY al.timestamp DESC, al.id DESC")
+    List<AccessLog> findPageBefore(@Param("beforeTime") LocalDateTime beforeTime,
+                                   @Param("beforeId") Long beforeId,
+                                   @Param("notBefore") LocalDateTime notBefore,
+                                   @Param("staffId") String staffId,
+                                   @Param("action") String action,
+                                   Limit limit);
+    
+    @Query("SELECT al.accessType, COUNT(al) FROM AccessLog al WHERE al.timestamp >= :startTime AND al.timestamp < :endTime GROUP BY al.accessType")
+    List<Object[]> countByAccessTypeBetween(@Param("startTime") LocalDateTime startTime,
+                                            @Param("endTime") LocalDateTime endTime);
+    
+    // Only what the rollups need, a day of history without loading entities
+    @Query("SELECT al.timestamp, al.zone, al.location, al.accessType, al.personId, al.qrCode, al.success FROM AccessLog al"
+         + " WHERE al.timestamp >= :startTime AND al.timestamp < :endTime")
+    List<Object[]> findRollupFieldsBetween(@Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime);
+    
+    // Forward-only cursors for exports; the caller clears the persistence context as it goes
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT al FROM AccessLog al WHERE al.timestamp >= :startTime AND al.timestamp < :endTime ORDER BY al.timestamp, al.id")
+    Stream<AccessLog> streamByAccessTimeBetween(@Param("startTime") LocalDateTime startTime,
+                                                @Param("endTime") LocalDateTime endTime);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT al FROM AccessLog al WHERE al.zone = :zone AND al.timestamp >= :startTime AND al.timestamp < :endTime"
+         + " ORDER BY al.timestamp, al.id")
+    Stream<AccessLog> streamByZoneAndAccessTimeBetween(@Param("zone") String zone,
+                                                       @Param("startTime") LocalDateTime startTime,
+                                                       @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT MAX(al.journalSequence) FROM AccessLog al")
+    Long findMaxJournalSequence();
+    
+    @Query("SELECT al.journalSequence FROM AccessLog al WHERE al.journalSequence >= :fromSequence")
+    List<Long> findJournalSequencesFrom(@Param("fromSequence") Long fromSequence);
     
     List<AccessLog> findTop10ByWorkerOrderByTimestampDesc(Worker worker);
     
-    // @Query("SELECT DISTINCT al.zone FROM AccessLog al WHERE al.worker.id = :workerId")
-    // List<String> findDistinctZonesByWorkerId(@Param("workerId") Long workerId);
+    @Query("SELECT DISTINCT al.zone FROM AccessLog al WHERE al.worker.id = :workerId AND al.zone IS NOT NULL")
+    List<String> findDistinctZonesByWorkerId(@Param("workerId") Long workerId);
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.securaccess.enterprise.repositories;
+
+import com.securaccess.enterprise.entities.AccessRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccessRollupRepository extends JpaRepository<AccessRollup, Long> {
+
+    // Returns 0 when the bucket has no row yet and has to be inserted
+    @Modifying
+    @Query("UPDATE AccessRollup r SET r.accessCount = r.accessCount + :delta WHERE r.granularity = :granularity"
+         + " AND r.bucketStart = :bucketStart AND r.zone = :zone AND r.accessType = :accessType")
+    int increment(@Param("granularity") AccessRollup.Granularity granularity,
+                  @Param("bucketStart") LocalDateTime bucketStart,
+                  @Param("zone") String zone,
+                  @Param("accessType") String accessType,
+                  @Param("delta") long delta);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AccessRollup r WHERE r.granularity = :granularity AND r.bucketStart >= :startTime AND r.bucketStart < :endTime")
+    int deleteRange(@Param("granularity") AccessRollup.Granularity granularity,
+                    @Param("startTime") LocalDateTime startTime,
+                    @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT MAX(r.bucketStart) FROM AccessRollup r WHERE r.granularity = :granularity")
+    LocalDateTime findLatestBucket(@Param("granularity") AccessRollup.Granularity granularity);
+
+    @Query("SELECT r.bucketStart, SUM(r.accessCount) FROM AccessRollup r WHERE r.granularity = :granularity"
+         + " AND r.bucketStart >= :startTime AND r.bucketStart < :endTime GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> sumByBucket(@Param("granularity") AccessRollup.Granularity granularity,
+                               @Param("startTime") LocalDateTime startTime,
+                               @Param("endTime") LocalDateTime endTime);
+
+    // Hour buckets of the given access types, one row per hour, zone and type
+    @Query("SELECT r.bucketStart, r.zone, r.accessCount FROM AccessRollup r WHERE r.granularity = :granularity"
+         + " AND r.bucketStart >= :startTime AND r.bucketStart < :endTime AND r.accessType IN :accessTypes")
+    List<Object[]> findCountsByAccessTypes(@Param("granularity") AccessRollup.Granularity granularity,
+                                           @Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime,
+                                           @Param("accessTypes") Collection<String> accessTypes);
+
+    @Query("SELECT r.accessType, SUM(r.accessCount) FROM AccessRollup r WHERE r.granularity = :granularity"
+         + " AND r.bucketStart >= :startTime AND r.bucketStart < :endTime GROUP BY r.accessType")
+    List<Object[]> sumByAccessType(@Param("granularity") AccessRollup.Granularity granularity,
+                                   @Param("startTime") LocalDateTime startTime,
+                                   @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT r.zone, SUM(r.accessCount) FROM AccessRollup r WHERE r.granularity = :granularity"
+         + " AND r.bucketStart >= :startTime AND r.bucketStart < :endTime GROUP BY r.zone")
+    List<Object[]> sumByZone(@Param("granularity") AccessRollup.Granularity granularity,
+                             @Param("startTime") LocalDateTime startTime,
+                             @Param("endTime") LocalDateTime endTime);
+}
@@ -1,15 +1,23 @@
 package com.securaccess.enterprise.repositories;
 
 import com.securaccess.enterprise.entities.HostQrCode;
+import com.securaccess.enterprise.entities.QrCodeStatus;
 import com.securaccess.enterprise.entities.Host;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface HostQrCodeRepository extends JpaRepository<HostQrCode, Long> {
@@ -18,10 +26,34 @@ public interface HostQrCodeRepository extends JpaRepository<HostQrCode, Long> {
     
     List<HostQrCode> findByCode(String code);
     
+    // Empty string when the code exists but its image was never stored
+    @Query("SELECT COALESCE(q.imageHash, '') FROM HostQrCode q WHERE q.code = :code")
+    Optional<String> findImageHashByCode(@Param("code") String code);
+    
     Optional<HostQrCode> findByHostAndCode(Host host, String code);
     
     List<HostQrCode> findByHostId(Long hostId);
     
+    // code, owner id, valid from, valid to, valid flag, used flag
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT q.code, q.host.id, q.generatedAt, q.expiresAt, q.isValid, q.isUsed FROM HostQrCode q")
+    Stream<Object[]> streamValidity();
+    
+    // Every issued code whatever its state, for the Bloom filter rebuild
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT q.code FROM HostQrCode q")
+    Stream<String> streamAllCodes();
+    
+    // code, valid from, valid to, stored status
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT q.code, q.generatedAt, q.expiresAt, q.status FROM HostQrCode q")
+    Stream<Object[]> streamSchedule();
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE HostQrCode q SET q.status = :status WHERE q.code IN :codes")
+    int updateStatus(@Param("status") QrCodeStatus status, @Param("codes") Collection<String> codes);
+    
     // @Query("SELECT hqr FROM HostQrCode hqr WHERE hqr.generatedAt BETWEEN :startDate AND :endDate")
     // List<HostQrCode> findByGeneratedAtBetween(@Param("startDate") LocalDateTime startDate,
     //                                          @Param("endDate") LocalDateTime endDate);
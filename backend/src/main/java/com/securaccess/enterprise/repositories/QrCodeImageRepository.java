@@ -0,0 +1,16 @@
+package com.securaccess.enterprise.repositories;
+
+import com.securaccess.enterprise.entities.QrCodeImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface QrCodeImageRepository extends JpaRepository<QrCodeImage, String> {
+
+    @Query("SELECT i.png FROM QrCodeImage i WHERE i.hash = :hash")
+    Optional<byte[]> findPngByHash(@Param("hash") String hash);
+}
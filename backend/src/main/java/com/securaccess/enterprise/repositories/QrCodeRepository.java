@@ -1,22 +1,49 @@
 package com.securaccess.enterprise.repositories;
 
 import com.securaccess.enterprise.entities.QrCode;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface QrCodeRepository extends JpaRepository<QrCode, Long> {
     
     Optional<QrCode> findByCode(String code);
     
+    // Empty string when the code exists but its image was never stored
+    @Query("SELECT COALESCE(qr.imageHash, '') FROM QrCode qr WHERE qr.code = :code")
+    Optional<String> findImageHashByCode(@Param("code") String code);
+    
     List<QrCode> findByActif(Boolean actif);
     
+    List<QrCode> findByEvenementId(Long evenementId);
+    
+    long countByEvenementId(Long evenementId);
+    
+    // code, image hash ('' when never stored); forward-only cursor, so exports never load the entities
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT qr.code, COALESCE(qr.imageHash, '') FROM QrCode qr WHERE qr.evenement.id = :evenementId ORDER BY qr.id")
+    Stream<Object[]> streamCodesAndImageHashesByEvenementId(@Param("evenementId") Long evenementId);
+    
+    // code, owner id, valid to, active, used
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT qr.code, qr.utilisateur.id, qr.dateExpiration, qr.actif, qr.utilise FROM QrCode qr")
+    Stream<Object[]> streamValidity();
+    
+    // Every issued code whatever its state, for the Bloom filter rebuild
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT q.code FROM QrCode q")
+    Stream<String> streamAllCodes();
+    
     // Temporarily commenting out complex queries until entity mapping is verified
     // @Query("SELECT qr FROM QrCode qr WHERE qr.dateExpiration < :currentDate")
     // List<QrCode> findExpiredQrCodes(@Param("currentDate") LocalDateTime currentDate);
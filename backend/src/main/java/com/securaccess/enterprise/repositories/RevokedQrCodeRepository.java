@@ -0,0 +1,23 @@
+package com.securaccess.enterprise.repositories;
+
+import com.securaccess.enterprise.entities.RevokedQrCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface RevokedQrCodeRepository extends JpaRepository<RevokedQrCode, Long> {
+
+    @Query("SELECT r FROM RevokedQrCode r WHERE r.validToMillis >= :nowMillis")
+    List<RevokedQrCode> findStillValid(@Param("nowMillis") long nowMillis);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedQrCode r WHERE r.validToMillis < :nowMillis")
+    int deleteExpired(@Param("nowMillis") long nowMillis);
+}
@@ -0,0 +1,27 @@
+package com.securaccess.enterprise.repositories;
+
+import com.securaccess.enterprise.entities.VisitorSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VisitorSketchRepository extends JpaRepository<VisitorSketch, Long> {
+
+    Optional<VisitorSketch> findByDayAndZone(LocalDate day, String zone);
+
+    @Query("SELECT s FROM VisitorSketch s WHERE s.day >= :fromDay AND s.day < :toDay")
+    List<VisitorSketch> findByDayRange(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VisitorSketch s WHERE s.day = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+}
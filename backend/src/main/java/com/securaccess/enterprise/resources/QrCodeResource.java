@@ -1,11 +1,19 @@
 package com.securaccess.enterprise.resources;
 
+import com.securaccess.enterprise.config.Measured;
 import com.securaccess.enterprise.entities.QrCode;
+import com.securaccess.enterprise.services.AccessEvent;
+import com.securaccess.enterprise.services.AccessLogIngestionService;
 import com.securaccess.enterprise.services.QrCodeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +27,9 @@ public class QrCodeResource {
     @Autowired
     private QrCodeService qrCodeService;
     
+    @Autowired
+    private AccessLogIngestionService accessLogIngestionService;
+    
     @GetMapping
     public ResponseEntity<?> obtenirTous() {
         try {
@@ -102,10 +113,33 @@ public class QrCodeResource {
         }
     }
     
+    @GetMapping("/code/{code}/image")
+    public ResponseEntity<?> obtenirImageParCode(@PathVariable String code) {
+        try {
+            Optional<byte[]> image = qrCodeService.obtenirImageParCode(code);
+            if (image.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .body(image.get());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors de la récupération de l'image du QR Code");
+            error.put("message", e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     @PostMapping("/valider/{code}")
-    public ResponseEntity<?> validerQrCode(@PathVariable String code) {
+    @Measured("validate_qr_code")
+    public ResponseEntity<?> validerQrCode(@PathVariable String code, @RequestParam(required = false) String zone) {
         try {
             boolean valide = qrCodeService.validerQrCode(code);
+            if (!valide) {
+                // Refusals reach the anomaly detector, where a burst of them raises an alert, but are not logged
+                accessLogIngestionService.announceDenied(AccessEvent.denied(code, zone, "invalid", LocalDateTime.now()));
+            }
             Map<String, Object> response = new HashMap<>();
             response.put("valide", valide);
             response.put("code", code);
@@ -125,7 +159,22 @@ public class QrCodeResource {
         }
     }
     
+    @PostMapping("/valider/lot")
+    public ResponseEntity<?> validerJetonsSignes(@RequestBody List<String> jetons) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("resultats", qrCodeService.verifierJetonsSignes(jetons));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors de la validation des jetons");
+            error.put("message", e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     @PostMapping("/utiliser/{code}")
+    @Measured("use_qr_code")
     public ResponseEntity<?> utiliserQrCode(@PathVariable String code) {
         try {
             String resultat = qrCodeService.utiliserQrCode(code);
@@ -174,6 +223,24 @@ public class QrCodeResource {
         }
     }
     
+    // Declared as StreamingResponseBody so Spring streams the archive instead of looking for a converter
+    @GetMapping("/evenement/{evenementId}/images")
+    public ResponseEntity<StreamingResponseBody> exporterImagesEvenement(@PathVariable Long evenementId) {
+        if (!qrCodeService.evenementExiste(evenementId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        // Stored images are copied entry by entry while the client downloads
+        StreamingResponseBody body = out -> qrCodeService.exporterImagesEvenement(evenementId, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("evenement-" + evenementId + "-qrcodes.zip")
+                .build()
+                .toString())
+            .body(body);
+    }
+    
     @GetMapping("/actifs")
     public ResponseEntity<?> obtenirQrCodesActifs() {
         try {
@@ -253,6 +320,18 @@ public class QrCodeResource {
         }
     }
     
+    @GetMapping("/stats/filtre")
+    public ResponseEntity<?> obtenirStatistiquesFiltre() {
+        try {
+            return ResponseEntity.ok(qrCodeService.obtenirStatistiquesFiltre());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erreur lors de la récupération des statistiques du filtre");
+            error.put("message", e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     @GetMapping("/stats/evenement/{evenementId}")
     public ResponseEntity<?> obtenirStatistiquesEvenement(@PathVariable Long evenementId) {
         try {
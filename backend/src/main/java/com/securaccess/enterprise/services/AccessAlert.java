@@ -0,0 +1,10 @@
+package com.securaccess.enterprise.services;
+
+import java.time.LocalDateTime;
+
+// Raised by the anomaly detector; key is what the rule counts by (gate zone, QR code or staff id)
+public record AccessAlert(long id, Type type, String key, String zone, long count, String message,
+                          LocalDateTime timestamp) {
+
+    public enum Type { FAILED_SCAN_BURST, ZONE_HOPPING, OVERRIDE_SPIKE }
+}
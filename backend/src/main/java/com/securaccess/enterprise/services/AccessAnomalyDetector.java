@@ -0,0 +1,199 @@
+package com.securaccess.enterprise.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Watches scans for patterns worth a look: bursts of failed scans at one gate, one QR
+// code used in two zones within seconds, and bursts of overrides by one staff member. Everything
+// is in memory: per-key sliding windows in maps capped at max-keys entries, least recently seen
+// evicted first, so a flood of new keys cannot grow the heap. Alerts go to a ring buffer read by
+// the dashboards and are published as AccessAlert events for live subscribers.
+@Service
+public class AccessAnomalyDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessAnomalyDetector.class);
+
+    private static final int BUCKETS = 12;
+    // Failed scans from scanners that did not say where they are still count, together
+    private static final String UNKNOWN_ZONE = "unknown";
+
+    private record Sighting(String zone, long epochMillis) {}
+
+    // One counting rule: a sliding window per key and the time of the key's last alert
+    private final class WindowRule {
+        private final AccessAlert.Type type;
+        private final long windowMillis;
+        private final int threshold;
+        private final Map<String, SlidingWindowCounter> windows = lruMap();
+        private final Map<String, Long> lastAlerts = lruMap();
+
+        WindowRule(AccessAlert.Type type, int windowSeconds, int threshold) {
+            this.type = type;
+            this.windowMillis = windowSeconds * 1000L;
+            this.threshold = threshold;
+        }
+
+        // Returns the count when it has just reached the threshold, at most once per window per key
+        synchronized long count(String key, long epochMillis) {
+            long count = windows.computeIfAbsent(key, k -> new SlidingWindowCounter(windowMillis, BUCKETS)).add(epochMillis);
+            if (count < threshold) {
+                return 0;
+            }
+            Long last = lastAlerts.get(key);
+            if (last != null && epochMillis - last < windowMillis) {
+                return 0;
+            }
+            lastAlerts.put(key, epochMillis);
+            return count;
+        }
+    }
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.anomaly.max-keys:4096}")
+    private int maxKeys;
+
+    @Value("${app.anomaly.feed-capacity:500}")
+    private int feedCapacity;
+
+    @Value("${app.anomaly.failed-scans.window-seconds:60}")
+    private int failedWindowSeconds;
+
+    @Value("${app.anomaly.failed-scans.threshold:10}")
+    private int failedThreshold;
+
+    @Value("${app.anomaly.zone-hopping.window-seconds:30}")
+    private int hoppingWindowSeconds;
+
+    @Value("${app.anomaly.overrides.window-seconds:600}")
+    private int overrideWindowSeconds;
+
+    @Value("${app.anomaly.overrides.threshold:5}")
+    private int overrideThreshold;
+
+    private WindowRule failedScans;
+    private WindowRule overrides;
+    private Map<String, Sighting> lastSightings;
+    private ConcurrentRingBuffer<AccessAlert> feed;
+    private long staleMillis;
+
+    private final AtomicLong alertIds = new AtomicLong();
+    private final LongAdder inspected = new LongAdder();
+    private final LongAdder raised = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        failedScans = new WindowRule(AccessAlert.Type.FAILED_SCAN_BURST, failedWindowSeconds, failedThreshold);
+        overrides = new WindowRule(AccessAlert.Type.OVERRIDE_SPIKE, overrideWindowSeconds, overrideThreshold);
+        lastSightings = lruMap();
+        feed = new ConcurrentRingBuffer<>(feedCapacity);
+        staleMillis = Math.max(Math.max(failedWindowSeconds, hoppingWindowSeconds), overrideWindowSeconds) * 1000L;
+    }
+
+    // Before the stream listener, so an alert raised here reaches subscribers right after its scan
+    @EventListener
+    @Order(20)
+    public void onAccess(AccessEvent event) {
+        long epochMillis = event.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // Replayed journal entries can be old; they could not be part of any live window
+        if (epochMillis < System.currentTimeMillis() - staleMillis) {
+            return;
+        }
+        inspected.increment();
+        String zone = event.zone() != null ? event.zone() : event.location();
+
+        if (!event.success()) {
+            String gate = zone != null ? zone : UNKNOWN_ZONE;
+            long count = failedScans.count(gate, epochMillis);
+            if (count > 0) {
+                raise(failedScans.type, gate, gate, count, epochMillis,
+                    count + " failed scans at " + gate + " within " + failedWindowSeconds + " s");
+            }
+        }
+
+        if ("override".equals(event.action()) && event.staffId() != null) {
+            long count = overrides.count(event.staffId(), epochMillis);
+            if (count > 0) {
+                raise(overrides.type, event.staffId(), zone, count, epochMillis,
+                    count + " overrides by staff " + event.staffId() + " within " + overrideWindowSeconds + " s");
+            }
+        }
+
+        if (event.success() && event.qrCode() != null && zone != null) {
+            Sighting previous;
+            synchronized (lastSightings) {
+                previous = lastSightings.put(event.qrCode(), new Sighting(zone, epochMillis));
+            }
+            if (previous != null && !previous.zone().equals(zone)
+                    && Math.abs(epochMillis - previous.epochMillis()) < hoppingWindowSeconds * 1000L) {
+                raise(AccessAlert.Type.ZONE_HOPPING, event.qrCode(), zone, 2, epochMillis,
+                    "QR code " + event.qrCode() + " used in " + previous.zone() + " and " + zone + " "
+                        + Math.abs(epochMillis - previous.epochMillis()) / 1000 + " s apart");
+            }
+        }
+    }
+
+    private void raise(AccessAlert.Type type, String key, String zone, long count, long epochMillis, String message) {
+        AccessAlert alert;
+        // Ids enter the feed in order, so readers can stop at the first id they already have
+        synchronized (feed) {
+            alert = new AccessAlert(alertIds.incrementAndGet(), type, key, zone, count, message,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+            feed.add(alert);
+        }
+        raised.increment();
+        logger.warn("Access anomaly {}: {}", type, message);
+        eventPublisher.publishEvent(alert);
+    }
+
+    // Newest first; only alerts with an id above afterId when given
+    public List<AccessAlert> recentAlerts(int limit, long afterId) {
+        List<AccessAlert> alerts = new ArrayList<>(Math.min(limit, feedCapacity));
+        feed.forEachNewestFirst(alert -> {
+            if (alert.id() <= afterId) {
+                return false;
+            }
+            alerts.add(alert);
+            return alerts.size() < limit;
+        });
+        return alerts;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inspected", inspected.sum());
+        stats.put("raised", raised.sum());
+        stats.put("feedSize", feed.size());
+        stats.put("feedCapacity", feedCapacity);
+        stats.put("maxKeys", maxKeys);
+        return stats;
+    }
+
+    private <V> Map<String, V> lruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-day, per-action access counts updated as each scan is accepted, so dashboards read a few
+// LongAdders instead of walking the logs. Days follow the site's calendar, not the server's.
+@Service
+public class AccessCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessCounters.class);
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Value("${app.site.time-zone:Africa/Dakar}")
+    private ZoneId siteZone;
+
+    @Value("${app.access-log.counters.retention-days:7}")
+    private int retentionDays;
+
+    private final Map<LocalDate, Map<String, LongAdder>> days = new ConcurrentHashMap<>();
+
+    // Runs before the web server accepts scans, so rebuilt and live counts never overlap
+    @PostConstruct
+    public void rebuild() {
+        LocalDate today = today();
+        long rows = 0;
+        for (int i = 0; i < retentionDays; i++) {
+            LocalDate day = today.minusDays(i);
+            List<Object[]> counts = accessLogRepository.countByAccessTypeBetween(
+                toServerTime(day), toServerTime(day.plusDays(1)));
+            for (Object[] count : counts) {
+                counter(day, (String) count[0]).add((Long) count[1]);
+                rows += (Long) count[1];
+            }
+        }
+        logger.info("Access counters rebuilt from {} logged accesses over {} days", rows, retentionDays);
+    }
+
+    @EventListener
+    @Order(10)
+    public void onAccess(AccessEvent event) {
+        // Refused scans are not accesses, and were never logged for a rebuild to count again
+        if (event.action() == null || AccessEvent.DENIED.equals(event.action())) {
+            return;
+        }
+        LocalDate day = event.timestamp().atZone(ZoneId.systemDefault()).withZoneSameInstant(siteZone).toLocalDate();
+        counter(day, event.action()).increment();
+    }
+
+    // Reads need no rollover of their own, the first scan after midnight opens the new day
+    @Scheduled(cron = "0 0 0 * * *", zone = "${app.site.time-zone:Africa/Dakar}")
+    public void rollOver() {
+        LocalDate oldest = today().minusDays(retentionDays - 1);
+        days.keySet().removeIf(day -> day.isBefore(oldest));
+    }
+
+    public long countToday(String action) {
+        return count(today(), action);
+    }
+
+    public long count(LocalDate day, String action) {
+        Map<String, LongAdder> counters = days.get(day);
+        LongAdder counter = counters != null ? counters.get(action) : null;
+        return counter != null ? counter.sum() : 0;
+    }
+
+    public Map<String, Long> countsFor(LocalDate day) {
+        Map<String, Long> result = new HashMap<>();
+        Map<String, LongAdder> counters = days.get(day);
+        if (counters != null) {
+            counters.forEach((action, counter) -> result.put(action, counter.sum()));
+        }
+        return result;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(siteZone);
+    }
+
+    public ZoneId getSiteZone() {
+        return siteZone;
+    }
+
+    private LongAdder counter(LocalDate day, String action) {
+        // Plain gets first: after the first scan of the day neither map is written again
+        Map<String, LongAdder> counters = days.get(day);
+        if (counters == null) {
+            counters = days.computeIfAbsent(day, d -> new ConcurrentHashMap<>());
+        }
+        LongAdder counter = counters.get(action);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(action, a -> new LongAdder());
+        }
+        return counter;
+    }
+
+    // access_logs timestamps are server-local
+    private LocalDateTime toServerTime(LocalDate siteDay) {
+        return siteDay.atStartOfDay(siteZone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,53 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+
+import java.time.LocalDateTime;
+
+// One gate scan as it enters the ingestion pipeline, before it has a database id. journalSequence is
+// the event's position in the AccessJournal, 0 until it has been journaled.
+public record AccessEvent(String qrCode, String personId, String personName, String action, String location,
+                          String zone, String staffId, boolean success, String details, LocalDateTime timestamp,
+                          long journalSequence) {
+
+    public AccessEvent(String qrCode, String personId, String personName, String action, String location,
+                       String zone, String staffId, boolean success, String details, LocalDateTime timestamp) {
+        this(qrCode, personId, personName, action, location, zone, staffId, success, details, timestamp, 0);
+    }
+
+    // A scan turned away at validation: seen by the anomaly detector and live stream, never persisted
+    // or counted
+    public static final String DENIED = "denied";
+
+    public static AccessEvent denied(String qrCode, String zone, String reason, LocalDateTime timestamp) {
+        // Whatever the scanner read, cut to the access_logs columns so the row can always be written
+        return new AccessEvent(truncate(qrCode, 50), null, null, DENIED, null, truncate(zone, 100), null, false,
+            reason, timestamp);
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+
+    public AccessEvent withJournalSequence(long sequence) {
+        return new AccessEvent(qrCode, personId, personName, action, location, zone, staffId, success, details,
+            timestamp, sequence);
+    }
+
+    public AccessLog toAccessLog() {
+        AccessLog accessLog = new AccessLog();
+        accessLog.setQrCode(qrCode);
+        accessLog.setPersonId(personId);
+        accessLog.setPersonName(personName);
+        accessLog.setAccessType(action);
+        // location is mandatory on the row, scanner posts only know their zone
+        accessLog.setLocation(location != null ? location : zone != null ? zone : "unknown");
+        accessLog.setZone(zone);
+        accessLog.setStaffId(staffId);
+        accessLog.setSuccess(success);
+        accessLog.setDetails(details);
+        accessLog.setTimestamp(timestamp);
+        accessLog.setJournalSequence(journalSequence > 0 ? journalSequence : null);
+        return accessLog;
+    }
+}
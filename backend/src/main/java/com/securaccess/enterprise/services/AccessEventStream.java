@@ -0,0 +1,246 @@
+package com.securaccess.enterprise.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fans accepted access events out to dashboards over SSE. Every subscriber has its own small buffer
+// that drops its oldest entry when a slow client falls behind; a shared pool drains only the buffers
+// that have something in them, so idle subscribers cost a heartbeat and nothing else. Servlet writes
+// block, so a client that stops reading holds its drain thread: the pool grows a thread per busy
+// subscriber instead of making the others wait, and the heartbeat completes any subscriber whose
+// write has been stuck longer than send-timeout-ms.
+@Service
+public class AccessEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessEventStream.class);
+
+    // Built events are immutable and shared; an SseEventBuilder is not, building appends to it
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    @Autowired
+    private AccessCounters accessCounters;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("accessStreamExecutor")
+    private Executor executor;
+
+    @Value("${app.stream.max-subscribers:500}")
+    private int maxSubscribers;
+
+    @Value("${app.stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${app.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${app.stream.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder stalled = new LongAdder();
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter = new SseEmitter(timeoutMillis);
+        private final Queue<Set<DataWithMediaType>> buffer = new ArrayDeque<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // System.nanoTime() when the write in progress started, 0 between writes
+        private volatile long sendStarted;
+
+        void offer(Set<DataWithMediaType> event) {
+            synchronized (buffer) {
+                if (buffer.size() == bufferSize) {
+                    buffer.poll();
+                    dropped.increment();
+                }
+                buffer.add(event);
+            }
+            // At most one drain task per subscriber is queued or running
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Set<DataWithMediaType> event;
+                    synchronized (buffer) {
+                        event = buffer.poll();
+                        if (event == null) {
+                            // Cleared under the buffer lock, an offer after this schedules a new drain
+                            draining.set(false);
+                            return;
+                        }
+                    }
+                    sendStarted = System.nanoTime();
+                    try {
+                        emitter.send(event);
+                    } finally {
+                        sendStarted = 0;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                draining.set(false);
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        boolean isStalled(long now, long limitNanos) {
+            long started = sendStarted;
+            return started != 0 && now - started > limitNanos;
+        }
+
+        void close() {
+            subscribers.remove(this);
+            synchronized (buffer) {
+                buffer.clear();
+            }
+            emitter.complete();
+        }
+    }
+
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live dashboard connections");
+        }
+        Subscriber subscriber = new Subscriber();
+        subscribers.add(subscriber);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        subscriber.offer(SseEmitter.event().name("hello").data("{\"subscribers\":" + subscribers.size() + "}").build());
+        return subscriber.emitter;
+    }
+
+    // After the counters and occupancy listeners, so the pushed values include this event
+    @EventListener
+    @Order(100)
+    public void onAccess(AccessEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String zone = event.zone() != null ? event.zone() : event.location();
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("qrCode", event.qrCode());
+        payload.put("personId", event.personId());
+        payload.put("personName", event.personName());
+        payload.put("action", event.action());
+        payload.put("zone", zone);
+        payload.put("staffId", event.staffId());
+        payload.put("success", event.success());
+        payload.put("timestamp", event.timestamp());
+
+        Map<String, Object> counters = new HashMap<>();
+        counters.put("action", event.action());
+        counters.put("delta", 1);
+        counters.put("today", event.action() != null ? accessCounters.countToday(event.action()) : 0);
+        counters.put("occupancy", occupancyTracker.getTotal());
+        if (zone != null) {
+            counters.put("zoneOccupancy", occupancyTracker.getCount(zone));
+        }
+        payload.put("counters", counters);
+
+        // Serialized and framed once, shared by every subscriber
+        Set<DataWithMediaType> message;
+        try {
+            message = SseEmitter.event()
+                .id(Long.toString(sequence.incrementAndGet()))
+                .name("access")
+                .data(objectMapper.writeValueAsString(payload))
+                .build();
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize access event for QR code {}: {}", event.qrCode(), e.getMessage());
+            return;
+        }
+        published.increment();
+        subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    // Anomaly alerts share the stream under their own event name
+    @EventListener
+    public void onAlert(AccessAlert alert) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> message;
+        try {
+            message = SseEmitter.event()
+                .id(Long.toString(sequence.incrementAndGet()))
+                .name("alert")
+                .data(objectMapper.writeValueAsString(alert))
+                .build();
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize access alert {}: {}", alert.id(), e.getMessage());
+            return;
+        }
+        published.increment();
+        subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    @Scheduled(fixedRateString = "${app.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long limitNanos = sendTimeoutMillis * 1_000_000;
+        subscribers.forEach(subscriber -> {
+            if (subscriber.isStalled(now, limitNanos)) {
+                // Stops feeding it; the blocked write fails once the container gives up on the socket
+                stalled.increment();
+                subscriber.close();
+            } else {
+                subscriber.offer(HEARTBEAT);
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("bufferSize", bufferSize);
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("stalled", stalled.sum());
+        return stats;
+    }
+}
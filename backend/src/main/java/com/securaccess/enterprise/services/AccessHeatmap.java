@@ -0,0 +1,151 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessRollup.Granularity;
+import com.securaccess.enterprise.repositories.AccessRollupRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Entry scans per zone by hour of the week, as int[168] indexed (Monday = 0) * 24 + hour on the
+// site clock. The live map covers the last 168 hours: every cell is exactly one past hour, and a
+// cell is zeroed when its hour comes round again a week later. Other ranges are summed from the
+// hourly rollups, which already hold one row per zone and hour.
+@Service
+public class AccessHeatmap {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessHeatmap.class);
+
+    public static final int HOURS_PER_WEEK = 7 * 24;
+
+    // The actions that bring someone into a zone, as in OccupancyTracker
+    private static final Set<String> ENTRIES = Set.of("check-in", "entry", "override");
+
+    private static final String UNKNOWN = "unknown";
+
+    // 1970-01-01 was a Thursday, three days after the Monday that starts cell 0
+    private static final int EPOCH_HOUR_OF_WEEK = 3 * 24;
+
+    @Autowired
+    private AccessRollupRepository accessRollupRepository;
+
+    // Rebuilds from the rollups, so they have to be caught up first
+    @Autowired
+    private AccessRollupService accessRollupService;
+
+    @Value("${app.site.time-zone:Africa/Dakar}")
+    private ZoneId siteZone;
+
+    // Guarded by this
+    private final Map<String, int[]> live = new HashMap<>();
+    private long currentHour;
+
+    // Runs before the web server accepts scans, so rebuilt and live counts never overlap
+    @PostConstruct
+    public synchronized void rebuild() {
+        LocalDateTime hour = LocalDateTime.now(siteZone).truncatedTo(ChronoUnit.HOURS);
+        currentHour = epochHour(hour);
+        List<Object[]> rows = accessRollupRepository.findCountsByAccessTypes(Granularity.HOUR,
+            hour.minusHours(HOURS_PER_WEEK - 1), hour.plusHours(1), ENTRIES);
+        live.putAll(fold(rows));
+        logger.info("Access heatmap rebuilt from {} hourly rollups", rows.size());
+    }
+
+    @EventListener
+    @Order(10)
+    public void onAccess(AccessEvent event) {
+        if (event.action() == null || !ENTRIES.contains(event.action())) {
+            return;
+        }
+        long hour = epochHour(event.timestamp().atZone(ZoneId.systemDefault()).withZoneSameInstant(siteZone).toLocalDateTime());
+        String zone = event.zone() != null ? event.zone() : event.location() != null ? event.location() : UNKNOWN;
+        synchronized (this) {
+            advanceTo(hour);
+            // Replayed scans older than a week have no cell left
+            if (hour > currentHour - HOURS_PER_WEEK) {
+                live.computeIfAbsent(zone, z -> new int[HOURS_PER_WEEK])[cellOf(hour)]++;
+            }
+        }
+    }
+
+    // Copies of the live arrays, covering the 168 hours up to now
+    public Map<String, int[]> lastWeek() {
+        long now = epochHour(LocalDateTime.now(siteZone));
+        Map<String, int[]> copy = new HashMap<>();
+        synchronized (this) {
+            advanceTo(now);
+            live.forEach((zone, cells) -> copy.put(zone, cells.clone()));
+        }
+        return copy;
+    }
+
+    // Site days [from, to), any length; rollup rows are summed in parallel
+    public Map<String, int[]> between(LocalDate from, LocalDate to) {
+        return fold(accessRollupRepository.findCountsByAccessTypes(Granularity.HOUR,
+            from.atStartOfDay(), to.atStartOfDay(), ENTRIES));
+    }
+
+    public static int[] total(Map<String, int[]> zones) {
+        int[] total = new int[HOURS_PER_WEEK];
+        for (int[] cells : zones.values()) {
+            for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                total[i] += cells[i];
+            }
+        }
+        return total;
+    }
+
+    public LocalDate today() {
+        return accessRollupService.today();
+    }
+
+    // Each worker thread fills its own arrays, the combiner adds them cell by cell
+    private static Map<String, int[]> fold(List<Object[]> rows) {
+        return rows.parallelStream().collect(HashMap::new, (zones, row) -> {
+            LocalDateTime bucket = (LocalDateTime) row[0];
+            int cell = (bucket.getDayOfWeek().getValue() - 1) * 24 + bucket.getHour();
+            zones.computeIfAbsent((String) row[1], z -> new int[HOURS_PER_WEEK])[cell] += ((Number) row[2]).intValue();
+        }, (left, right) -> right.forEach((zone, cells) -> left.merge(zone, cells, (a, b) -> {
+            for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        })));
+    }
+
+    // Called with the monitor held; clears the cells of the hours that passed since the last scan
+    private void advanceTo(long hour) {
+        if (hour <= currentHour) {
+            return;
+        }
+        long passed = Math.min(hour - currentHour, HOURS_PER_WEEK);
+        for (int[] cells : live.values()) {
+            for (long h = hour - passed + 1; h <= hour; h++) {
+                cells[cellOf(h)] = 0;
+            }
+        }
+        currentHour = hour;
+    }
+
+    private static long epochHour(LocalDateTime siteTime) {
+        return siteTime.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static int cellOf(long epochHour) {
+        return (int) ((epochHour + EPOCH_HOUR_OF_WEEK) % HOURS_PER_WEEK);
+    }
+}
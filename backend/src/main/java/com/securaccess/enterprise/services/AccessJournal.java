@@ -0,0 +1,371 @@
+package com.securaccess.enterprise.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Append-only journal of access decisions in memory-mapped segment files. Records have a fixed
+// 192-byte layout, so a sequence number alone locates a record. Appends only copy bytes into the
+// mapping; callers that need durability wait in awaitDurable, where one thread forces the pages for
+// everyone queued behind it (group commit).
+@Service
+public class AccessJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessJournal.class);
+
+    // crc32(4) sequence(8) epochMillis(8) success(1) pad(3) action(16) personId(48) zone(48) qrCode(40) staffId(16)
+    static final int RECORD_SIZE = 192;
+    private static final int CRC = 0;
+    private static final int SEQUENCE = 4;
+    private static final int EPOCH_MILLIS = 12;
+    private static final int SUCCESS = 20;
+    private static final int ACTION = 24;
+    private static final int PERSON_ID = 40;
+    private static final int ZONE = 88;
+    private static final int QR_CODE = 136;
+    private static final int STAFF_ID = 176;
+
+    private static final String SEGMENT_PREFIX = "access-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    public record JournalRecord(long sequence, long epochMillis, boolean success, String action, String personId,
+                                String zone, String qrCode, String staffId) {
+
+        public AccessEvent toEvent() {
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+            return new AccessEvent(qrCode, personId, null, action, null, zone, staffId, success, null, timestamp, sequence);
+        }
+    }
+
+    private static final class Segment {
+        final long index;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    @Value("${app.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.journal.directory:./data/journal}")
+    private String directory;
+
+    @Value("${app.journal.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${app.journal.retained-segments:16}")
+    private int retainedSegments;
+
+    private Path root;
+    private int recordsPerSegment;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by this: the next sequence to hand out and the segment it lands in
+    private long nextSequence = 1;
+    private Segment current;
+
+    // Everything up to here has been forced to disk
+    private volatile long durableSequence;
+    private final Object forceLock = new Object();
+    private volatile long forces;
+
+    // Last sequence found on disk at startup, everything after it was appended by this process
+    private long recoveredSequence;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        recordsPerSegment = segmentBytes / RECORD_SIZE;
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+
+        List<Long> existing = listSegments();
+        existing.forEach(this::map);
+        for (int i = existing.size() - 1; i >= 0 && nextSequence == 1; i--) {
+            // The tail is found from the newest segment holding a valid record; a torn record ends it
+            Segment segment = segments.get(existing.get(i));
+            long last = 0;
+            for (int slot = 0; slot < recordsPerSegment; slot++) {
+                JournalRecord record = read(segment, slot);
+                if (record == null) {
+                    break;
+                }
+                last = record.sequence();
+            }
+            if (last > 0) {
+                nextSequence = last + 1;
+            }
+        }
+        recoveredSequence = nextSequence - 1;
+        durableSequence = recoveredSequence;
+        current = segmentFor(nextSequence);
+        logger.info("Access journal opened in {}, next sequence {}", root.toAbsolutePath(), nextSequence);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getRecoveredSequence() {
+        return recoveredSequence;
+    }
+
+    // Returns the record's sequence; the record is durable only after awaitDurable(sequence)
+    public long append(AccessEvent event) {
+        long epochMillis = event.timestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (this) {
+            long sequence = nextSequence;
+            if (current.index != segmentIndex(sequence)) {
+                current = segmentFor(sequence);
+            }
+            ByteBuffer record = ByteBuffer.wrap(scratch);
+            Arrays.fill(scratch, (byte) 0);
+            record.putLong(SEQUENCE, sequence);
+            record.putLong(EPOCH_MILLIS, epochMillis);
+            record.put(SUCCESS, (byte) (event.success() ? 1 : 0));
+            putText(ACTION, 16, event.action());
+            putText(PERSON_ID, 48, event.personId());
+            putText(ZONE, 48, event.zone() != null ? event.zone() : event.location());
+            putText(QR_CODE, 40, event.qrCode());
+            putText(STAFF_ID, 16, event.staffId());
+            crc.reset();
+            crc.update(scratch, SEQUENCE, RECORD_SIZE - SEQUENCE);
+            record.putInt(CRC, (int) crc.getValue());
+
+            current.buffer.put(slot(sequence) * RECORD_SIZE, scratch);
+            nextSequence = sequence + 1;
+            return sequence;
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        synchronized (forceLock) {
+            // Another thread's force may already have covered this record while we waited
+            if (durableSequence >= sequence) {
+                return;
+            }
+            long target;
+            List<Segment> dirty = new ArrayList<>();
+            synchronized (this) {
+                target = nextSequence - 1;
+                dirty.addAll(segments.subMap(segmentIndex(durableSequence + 1), true, segmentIndex(target), true).values());
+            }
+            for (Segment segment : dirty) {
+                long first = Math.max(durableSequence + 1, segment.index * recordsPerSegment + 1);
+                long last = Math.min(target, (segment.index + 1) * recordsPerSegment);
+                segment.buffer.force(slot(first) * RECORD_SIZE, (int) (last - first + 1) * RECORD_SIZE);
+            }
+            durableSequence = target;
+            forces++;
+        }
+    }
+
+    // Visits records with fromSequence <= sequence <= toSequence in order
+    public void replay(long fromSequence, long toSequence, Consumer<JournalRecord> visitor) {
+        if (!enabled) {
+            return;
+        }
+        // Inclusive bound, so an open-ended Long.MAX_VALUE cannot overflow
+        long last;
+        synchronized (this) {
+            last = Math.min(toSequence, nextSequence - 1);
+        }
+        for (long sequence = Math.max(1, fromSequence); sequence <= last; sequence++) {
+            Segment segment;
+            synchronized (this) {
+                segment = segments.get(segmentIndex(sequence));
+            }
+            if (segment == null) {
+                // Dropped by retention, continue with the oldest segment still on disk
+                Long next;
+                synchronized (this) {
+                    next = segments.higherKey(segmentIndex(sequence));
+                }
+                if (next == null) {
+                    return;
+                }
+                sequence = next * recordsPerSegment;
+                continue;
+            }
+            JournalRecord record = read(segment, slot(sequence));
+            if (record == null) {
+                return;
+            }
+            visitor.accept(record);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        if (enabled) {
+            synchronized (this) {
+                stats.put("nextSequence", nextSequence);
+                stats.put("segments", segments.size());
+            }
+            stats.put("durableSequence", durableSequence);
+            stats.put("recoveredSequence", recoveredSequence);
+            stats.put("forces", forces);
+            stats.put("directory", root.toAbsolutePath().toString());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        long last;
+        synchronized (this) {
+            last = nextSequence - 1;
+        }
+        awaitDurable(last);
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                try {
+                    segment.channel.close();
+                } catch (IOException e) {
+                    logger.warn("Could not close journal segment {}: {}", segment.index, e.getMessage());
+                }
+            }
+            segments.clear();
+        }
+    }
+
+    private JournalRecord read(Segment segment, int slot) {
+        ByteBuffer record = segment.buffer.duplicate();
+        byte[] bytes = new byte[RECORD_SIZE];
+        record.get(slot * RECORD_SIZE, bytes);
+        ByteBuffer view = ByteBuffer.wrap(bytes);
+        long sequence = view.getLong(SEQUENCE);
+        if (sequence == 0) {
+            return null;
+        }
+        CRC32 check = new CRC32();
+        check.update(bytes, SEQUENCE, RECORD_SIZE - SEQUENCE);
+        if ((int) check.getValue() != view.getInt(CRC)) {
+            return null;
+        }
+        return new JournalRecord(sequence, view.getLong(EPOCH_MILLIS), view.get(SUCCESS) == 1,
+            getText(bytes, ACTION), getText(bytes, PERSON_ID), getText(bytes, ZONE),
+            getText(bytes, QR_CODE), getText(bytes, STAFF_ID));
+    }
+
+    // Length-prefixed UTF-8, cut on a character boundary when it does not fit
+    private void putText(int offset, int width, String value) {
+        if (value == null) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, width - 1);
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        scratch[offset] = (byte) length;
+        System.arraycopy(bytes, 0, scratch, offset + 1, length);
+    }
+
+    private static String getText(byte[] bytes, int offset) {
+        int length = bytes[offset] & 0xFF;
+        return length == 0 ? null : new String(bytes, offset + 1, length, StandardCharsets.UTF_8);
+    }
+
+    private long segmentIndex(long sequence) {
+        return (sequence - 1) / recordsPerSegment;
+    }
+
+    private int slot(long sequence) {
+        return (int) ((sequence - 1) % recordsPerSegment);
+    }
+
+    // Called with the monitor held
+    private Segment segmentFor(long sequence) {
+        long index = segmentIndex(sequence);
+        Segment segment = segments.get(index);
+        if (segment == null) {
+            segment = map(index);
+            while (segments.size() > retainedSegments) {
+                Segment oldest = segments.pollFirstEntry().getValue();
+                try {
+                    oldest.channel.close();
+                    Files.deleteIfExists(segmentPath(oldest.index));
+                } catch (IOException e) {
+                    logger.warn("Could not delete journal segment {}: {}", oldest.index, e.getMessage());
+                }
+            }
+        }
+        return segment;
+    }
+
+    private Segment map(long index) {
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath(index).toFile(), "rw")) {
+            // Preallocated to full size, appends never grow the file
+            if (file.length() < (long) recordsPerSegment * RECORD_SIZE) {
+                file.setLength((long) recordsPerSegment * RECORD_SIZE);
+            }
+            FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+            Segment segment = new Segment(index, channel, buffer);
+            segments.put(index, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map access journal segment " + index, e);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return root.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                indexes.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+}
@@ -0,0 +1,106 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes access logs as CSV while reading them from a database cursor. Rows are written as they
+// arrive and the persistence context is cleared every few rows, so memory does not depend on the
+// length of the export.
+@Service
+public class AccessLogExportService {
+
+    private static final String HEADER = "id,timestamp,action,success,zone,location,qr_code,person_id,person_name,staff_id,details\r\n";
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.access-log.export.clear-every:1000}")
+    private int clearEvery;
+
+    // [from, to), all zones when zone is null; returns the number of rows written
+    @Transactional(readOnly = true)
+    public long exportCsv(LocalDateTime from, LocalDateTime to, String zone, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        writer.write(HEADER);
+        long rows = 0;
+        try (Stream<AccessLog> logs = zone == null
+                ? accessLogRepository.streamByAccessTimeBetween(from, to)
+                : accessLogRepository.streamByZoneAndAccessTimeBetween(zone, from, to)) {
+            Iterator<AccessLog> iterator = logs.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, iterator.next());
+                if (++rows % clearEvery == 0) {
+                    // Streamed entities stay managed until cleared; the cursor itself is unaffected
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeRow(Writer writer, AccessLog log) throws IOException {
+        writer.write(String.valueOf(log.getId()));
+        writer.write(',');
+        writer.write(log.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        writer.write(',');
+        writeField(writer, log.getAccessType());
+        writer.write(',');
+        writer.write(String.valueOf(Boolean.TRUE.equals(log.getSuccess())));
+        writer.write(',');
+        writeField(writer, log.getZone());
+        writer.write(',');
+        writeField(writer, log.getLocation());
+        writer.write(',');
+        writeField(writer, log.getQrCode());
+        writer.write(',');
+        writeField(writer, log.getPersonId());
+        writer.write(',');
+        writeField(writer, log.getPersonName());
+        writer.write(',');
+        writeField(writer, log.getStaffId());
+        writer.write(',');
+        writeField(writer, log.getDetails());
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting; free text starting like a formula is prefixed so spreadsheets show it as text
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean formula = "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
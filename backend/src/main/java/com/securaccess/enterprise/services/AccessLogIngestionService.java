@@ -0,0 +1,331 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Gates hand scans to a bounded lock-free queue and are answered straight away; a single writer
+// thread drains it into access_logs in JDBC batches, so scan latency never includes a commit.
+// When the journal is enabled a scan is journaled and forced to disk before it is queued, and
+// journaled scans missing from access_logs are replayed at startup.
+@Service
+public class AccessLogIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogIngestionService.class);
+
+    // What a gate gets when the queue is full
+    public enum Backpressure { BLOCK, DROP, CALLER_RUNS }
+
+    public enum Result { QUEUED, PERSISTED, REJECTED }
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Autowired
+    private AccessRollupService accessRollupService;
+
+    @Autowired
+    private AccessJournal accessJournal;
+
+    // Accepted scans are published right away to in-memory consumers (counters, dashboards)
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.access-log.queue-capacity:10000}")
+    private int capacity;
+
+    @Value("${app.access-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.access-log.backpressure:BLOCK}")
+    private Backpressure backpressure;
+
+    @Value("${app.access-log.block-timeout-ms:100}")
+    private long blockTimeoutMillis;
+
+    @Value("${app.access-log.flush-interval-ms:50}")
+    private long flushIntervalMillis;
+
+    @Value("${app.access-log.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    @Value("${app.journal.recovery-window:100000}")
+    private long recoveryWindow;
+
+    // The queue itself is unbounded; the permit counter bounds it with a CAS, no lock on either side
+    private final Queue<AccessEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writer;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder journalFailures = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder replayFailures = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "access-log-writer");
+        writer.start();
+    }
+
+    public Result submit(AccessEvent event) {
+        if (accessJournal.isEnabled()) {
+            try {
+                long sequence = accessJournal.append(event);
+                accessJournal.awaitDurable(sequence);
+                event = event.withJournalSequence(sequence);
+            } catch (RuntimeException e) {
+                // A gate keeps working without the journal, the scan is just not crash-safe
+                journalFailures.increment();
+                logger.error("Could not journal access for QR code {}: {}", event.qrCode(), e.getMessage());
+            }
+        }
+        return publish(event);
+    }
+
+    // Scans refused at validation are only announced to in-memory consumers (anomaly detector, live
+    // stream). No journal write and no row: a flood of garbage codes must stay as cheap as the check
+    // that turned it away.
+    public void announceDenied(AccessEvent event) {
+        denied.increment();
+        eventPublisher.publishEvent(event);
+    }
+
+    // Journaled scans from before this start whose rows never reached access_logs (queued at a
+    // crash, or dropped under backpressure) are written again. Rows persisted out of order are why
+    // a window is checked rather than just the sequences after the highest one stored.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    public void recover() {
+        if (accessJournal.isEnabled()) {
+            long count = replayJournal();
+            if (count > 0) {
+                logger.info("Replayed {} journaled accesses missing from access_logs", count);
+            }
+        }
+    }
+
+    // Live scans are never candidates: they are past the recovered sequence and may still be queued.
+    // Recovered scans are written here in batches rather than queued, gate backpressure must not
+    // drop the very scans the journal exists to keep.
+    public synchronized long replayJournal() {
+        long to = accessJournal.getRecoveredSequence();
+        Long highest = accessLogRepository.findMaxJournalSequence();
+        long from = highest != null ? Math.max(1, Math.min(highest, to) - recoveryWindow) : 1;
+        Set<Long> stored = new HashSet<>(accessLogRepository.findJournalSequencesFrom(from));
+        long before = replayed.sum();
+        long failuresBefore = replayFailures.sum();
+        List<AccessEvent> batch = new ArrayList<>(batchSize);
+        accessJournal.replay(from, to, record -> {
+            if (!stored.contains(record.sequence())) {
+                batch.add(record.toEvent());
+                if (batch.size() == batchSize) {
+                    writeRecovered(batch);
+                    batch.clear();
+                }
+            }
+        });
+        if (!batch.isEmpty()) {
+            writeRecovered(batch);
+        }
+        long failures = replayFailures.sum() - failuresBefore;
+        if (failures > 0) {
+            logger.error("{} journaled accesses between sequences {} and {} could not be restored", failures, from, to);
+        }
+        return replayed.sum() - before;
+    }
+
+    private void writeRecovered(List<AccessEvent> events) {
+        List<AccessEvent> lost = write(events);
+        replayFailures.add(lost.size());
+        for (AccessEvent event : events) {
+            if (!lost.contains(event)) {
+                replayed.increment();
+                eventPublisher.publishEvent(event);
+            }
+        }
+    }
+
+    // Counters and dashboards see the scan as soon as the log pipeline has accepted it
+    private Result publish(AccessEvent event) {
+        Result result = enqueue(event);
+        if (result != Result.REJECTED) {
+            eventPublisher.publishEvent(event);
+        }
+        return result;
+    }
+
+    private Result enqueue(AccessEvent event) {
+        if (tryEnqueue(event)) {
+            return Result.QUEUED;
+        }
+
+        switch (backpressure) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                    if (tryEnqueue(event)) {
+                        return Result.QUEUED;
+                    }
+                }
+            }
+            case CALLER_RUNS -> {
+                // The gate pays for its own insert rather than losing the event
+                callerRuns.increment();
+                AccessLog row = accessLogRepository.save(event.toAccessLog());
+                accessRollupService.record(List.of(row));
+                persisted.increment();
+                return Result.PERSISTED;
+            }
+            case DROP -> {
+            }
+        }
+        rejected.increment();
+        return Result.REJECTED;
+    }
+
+    private boolean tryEnqueue(AccessEvent event) {
+        if (!running) {
+            return false;
+        }
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+
+        queue.add(event);
+        queued.increment();
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        List<AccessEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            AccessEvent event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                writerParked = true;
+                // Re-check after publishing the flag, an event may have slipped in just before it
+                if (queue.isEmpty() && running) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+                }
+                writerParked = false;
+                continue;
+            }
+            size.addAndGet(-batch.size());
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Returns the events that could not be written
+    private List<AccessEvent> write(List<AccessEvent> events) {
+        List<AccessLog> rows = new ArrayList<>(events.size());
+        events.forEach(event -> rows.add(event.toAccessLog()));
+        try {
+            // One transaction, hibernate.jdbc.batch_size rows per statement batch
+            accessLogRepository.saveAll(rows);
+            accessRollupService.record(rows);
+            persisted.add(rows.size());
+            batches.increment();
+            return List.of();
+        } catch (Exception e) {
+            logger.warn("Access log batch of {} failed, retrying row by row: {}", rows.size(), e.getMessage());
+            List<AccessEvent> lost = new ArrayList<>();
+            for (AccessEvent event : events) {
+                try {
+                    AccessLog row = accessLogRepository.save(event.toAccessLog());
+                    accessRollupService.record(List.of(row));
+                    persisted.increment();
+                } catch (Exception rowFailure) {
+                    failed.increment();
+                    lost.add(event);
+                    logger.error("Dropping access log for QR code {}: {}", event.qrCode(), rowFailure.getMessage());
+                }
+            }
+            return lost;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // New scans are refused from here on; whatever is queued is written before the pool closes
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(shutdownTimeoutMillis);
+        if (writer.isAlive()) {
+            logger.error("Access log writer did not finish within {} ms, {} events lost", shutdownTimeoutMillis, size.get());
+        } else {
+            // A scan that raced the shutdown flag may still have been enqueued after the last drain
+            List<AccessEvent> stragglers = new ArrayList<>();
+            AccessEvent event;
+            while ((event = queue.poll()) != null) {
+                stragglers.add(event);
+            }
+            if (!stragglers.isEmpty()) {
+                write(stragglers);
+            }
+            logger.info("Access log writer stopped after persisting {} events", persisted.sum());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", size.get());
+        stats.put("capacity", capacity);
+        stats.put("backpressure", backpressure);
+        stats.put("queued", queued.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("callerRuns", callerRuns.sum());
+        stats.put("persisted", persisted.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("journalFailures", journalFailures.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("replayFailures", replayFailures.sum());
+        stats.put("denied", denied.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,241 @@
+package com.securaccess.enterprise.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Keeps access_logs range-partitioned on its timestamp (MySQL RANGE COLUMNS): partitions ahead of
+// the clock are created in advance and those past retention are dropped, a metadata-only operation
+// instead of a mass DELETE. Other databases keep the single table and the router falls back to it.
+@Service
+public class AccessLogPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogPartitionManager.class);
+
+    private static final String TABLE = "access_logs";
+    private static final String CATCH_ALL = "pmax";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public enum Granularity {
+        DAY, MONTH;
+
+        LocalDate floor(LocalDate date) {
+            return this == DAY ? date : date.withDayOfMonth(1);
+        }
+
+        LocalDate next(LocalDate start) {
+            return this == DAY ? start.plusDays(1) : start.plusMonths(1);
+        }
+    }
+
+    // Rows with from <= timestamp < to; from is null for the first partition, which also holds anything older
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return (from == null || !from.isAfter(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.access-log.partition.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.access-log.partition.granularity:MONTH}")
+    private Granularity granularity;
+
+    @Value("${app.access-log.partition.ahead:3}")
+    private int ahead;
+
+    @Value("${app.access-log.partition.retention-days:365}")
+    private int retentionDays;
+
+    private volatile boolean partitioned;
+    private volatile List<Partition> partitions = List.of();
+    private volatile LocalDateTime lastMaintenance;
+    private volatile long droppedPartitions;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(database)) {
+            logger.info("Access log partitioning is not available on {}, keeping a single {} table", database, TABLE);
+            return;
+        }
+        partitioned = true;
+        maintain();
+    }
+
+    @Scheduled(initialDelayString = "${app.access-log.partition.maintenance-interval-ms:3600000}",
+               fixedDelayString = "${app.access-log.partition.maintenance-interval-ms:3600000}")
+    public synchronized void maintain() {
+        if (!partitioned) {
+            return;
+        }
+        try {
+            List<Partition> existing = readPartitions();
+            if (existing.isEmpty()) {
+                convert();
+            } else {
+                extend(existing);
+                dropExpired(existing);
+            }
+            partitions = readPartitions();
+            lastMaintenance = LocalDateTime.now();
+        } catch (Exception e) {
+            logger.error("Access log partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    // Empty when the table is not partitioned, callers then query it as a whole
+    public List<Partition> partitionsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Partition> selected = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.overlaps(from, to)) {
+                selected.add(partition);
+            }
+        }
+        return selected;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned && !partitions.isEmpty();
+    }
+
+    private void convert() {
+        LocalDate current = granularity.floor(LocalDate.now());
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + TABLE, LocalDateTime.class);
+        LocalDate start = granularity.floor(LocalDate.now().minusDays(retentionDays));
+        if (oldest != null && oldest.toLocalDate().isAfter(start)) {
+            start = granularity.floor(oldest.toLocalDate());
+        }
+        if (start.isAfter(current)) {
+            start = current;
+        }
+
+        // MySQL refuses foreign keys on partitioned tables and wants the partition column in every unique key
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+            "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND CONSTRAINT_TYPE = 'FOREIGN KEY'",
+            String.class, TABLE);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP FOREIGN KEY " + foreignKey);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)");
+
+        StringJoiner definitions = new StringJoiner(", ", "(", ")");
+        LocalDate last = granularity.next(current);
+        for (int i = 0; i < ahead; i++) {
+            last = granularity.next(last);
+        }
+        for (LocalDate from = start; from.isBefore(last); from = granularity.next(from)) {
+            definitions.add(definition(from));
+        }
+        definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+
+        // One-off table rebuild, later maintenance only touches empty or expired partitions
+        long began = System.nanoTime();
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(timestamp) " + definitions);
+        logger.info("Partitioned {} by {} starting {} in {} ms", TABLE, granularity, start,
+            (System.nanoTime() - began) / 1_000_000);
+    }
+
+    private void extend(List<Partition> existing) {
+        LocalDateTime highest = null;
+        for (Partition partition : existing) {
+            if (partition.to() != null) {
+                highest = partition.to();
+            }
+        }
+        LocalDate target = granularity.floor(LocalDate.now());
+        for (int i = 0; i <= ahead; i++) {
+            target = granularity.next(target);
+        }
+        LocalDate from = highest != null ? highest.toLocalDate() : granularity.floor(LocalDate.now());
+        if (!from.isBefore(target)) {
+            return;
+        }
+
+        // Splitting the catch-all is cheap as long as nothing was written that far ahead
+        StringJoiner definitions = new StringJoiner(", ", "(", ")");
+        for (; from.isBefore(target); from = granularity.next(from)) {
+            definitions.add(definition(from));
+        }
+        definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + CATCH_ALL + " INTO " + definitions);
+    }
+
+    private void dropExpired(List<Partition> existing) {
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        List<String> expired = new ArrayList<>();
+        for (Partition partition : existing) {
+            if (partition.to() != null && !partition.to().isAfter(cutoff)) {
+                expired.add(partition.name());
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+        droppedPartitions += expired.size();
+        logger.info("Dropped {} expired access log partitions older than {}", expired.size(), cutoff);
+    }
+
+    private String definition(LocalDate from) {
+        return "PARTITION p" + from.format(NAME_FORMAT) + " VALUES LESS THAN ('"
+            + granularity.next(from).atStartOfDay().format(BOUND_FORMAT) + "')";
+    }
+
+    private List<Partition> readPartitions() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL"
+                + " ORDER BY PARTITION_ORDINAL_POSITION",
+            TABLE);
+        List<Partition> result = new ArrayList<>(rows.size());
+        LocalDateTime from = null;
+        for (Map<String, Object> row : rows) {
+            String bound = String.valueOf(row.get("PARTITION_DESCRIPTION")).replace("'", "");
+            LocalDateTime to = "MAXVALUE".equalsIgnoreCase(bound) ? null : LocalDateTime.parse(bound, BOUND_FORMAT);
+            result.add(new Partition((String) row.get("PARTITION_NAME"), from, to));
+            from = to;
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        List<Partition> current = partitions;
+        stats.put("partitioned", isPartitioned());
+        stats.put("granularity", granularity);
+        stats.put("retentionDays", retentionDays);
+        stats.put("partitions", current.size());
+        stats.put("oldest", current.isEmpty() ? null : current.get(0).name());
+        stats.put("droppedPartitions", droppedPartitions);
+        stats.put("lastMaintenance", lastMaintenance);
+        return stats;
+    }
+}
@@ -0,0 +1,64 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+
+// Time-bounded access log queries name the partitions they need explicitly, so the database never
+// opens partitions outside the range even when it could not prune them from the predicate alone.
+@Service
+@Transactional(readOnly = true)
+public class AccessLogPartitionRouter {
+
+    @Autowired
+    private AccessLogPartitionManager partitionManager;
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<AccessLog> findBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        if (!partitionManager.isPartitioned()) {
+            return accessLogRepository.findByAccessTimeBetween(startTime, endTime);
+        }
+        return query(null, startTime, endTime);
+    }
+
+    public List<AccessLog> findByZoneBetween(String zone, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!partitionManager.isPartitioned()) {
+            return accessLogRepository.findByZoneAndAccessTimeBetween(zone, startTime, endTime);
+        }
+        return query(zone, startTime, endTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AccessLog> query(String zone, LocalDateTime startTime, LocalDateTime endTime) {
+        List<AccessLogPartitionManager.Partition> partitions = partitionManager.partitionsBetween(startTime, endTime);
+        if (partitions.isEmpty()) {
+            return List.of();
+        }
+        StringJoiner names = new StringJoiner(", ", " PARTITION (", ")");
+        partitions.forEach(partition -> names.add(partition.name()));
+
+        String sql = "SELECT * FROM access_logs" + names + " WHERE timestamp BETWEEN :startTime AND :endTime"
+            + (zone != null ? " AND zone = :zone" : "") + " ORDER BY timestamp";
+        Query query = entityManager.createNativeQuery(sql, AccessLog.class)
+            .setParameter("startTime", startTime)
+            .setParameter("endTime", endTime);
+        if (zone != null) {
+            query.setParameter("zone", zone);
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,233 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.entities.AccessRollup;
+import com.securaccess.enterprise.entities.AccessRollup.Granularity;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import com.securaccess.enterprise.repositories.AccessRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps access_rollups in step with access_logs. Persisted rows are folded into per-bucket deltas in
+// memory and one scheduled flush applies them, so there is a single writer and no upsert races.
+// History is rebuilt day by day from access_logs: at startup for the days not yet rolled up, and
+// on demand for closed days, which live traffic (always stamped "now") can no longer touch.
+// Distinct-visitor sketches are fed from the same rows and rebuilt with the same days.
+@Service
+public class AccessRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessRollupService.class);
+
+    private static final String UNKNOWN = "unknown";
+
+    private record Bucket(Granularity granularity, LocalDateTime start, String zone, String accessType) {}
+
+    @Autowired
+    private AccessRollupRepository accessRollupRepository;
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Autowired
+    private VisitorSketchService visitorSketchService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.site.time-zone:Africa/Dakar}")
+    private ZoneId siteZone;
+
+    @Value("${app.stats.backfill-days:90}")
+    private int backfillDays;
+
+    private final Map<Bucket, Long> pending = new ConcurrentHashMap<>();
+
+    // Runs before the web server accepts scans, so the rebuilt days see no live deltas meanwhile
+    @PostConstruct
+    public void catchUp() {
+        LocalDate today = LocalDate.now(siteZone);
+        LocalDate from = today.minusDays(backfillDays - 1);
+        LocalDateTime latest = accessRollupRepository.findLatestBucket(Granularity.DAY);
+        if (latest != null && latest.toLocalDate().isAfter(from)) {
+            from = latest.toLocalDate();
+        }
+        rebuild(from, today.plusDays(1));
+    }
+
+    // Called with rows once they are committed
+    public void record(Collection<AccessLog> logs) {
+        Map<Bucket, Long> deltas = new HashMap<>();
+        for (AccessLog log : logs) {
+            if (log.getAccessType() == null || log.getTimestamp() == null) {
+                continue;
+            }
+            LocalDateTime siteTime = toSiteTime(log.getTimestamp());
+            String zone = zoneOf(log);
+            deltas.merge(new Bucket(Granularity.HOUR, siteTime.truncatedTo(ChronoUnit.HOURS), zone, log.getAccessType()), 1L, Long::sum);
+            deltas.merge(new Bucket(Granularity.DAY, siteTime.toLocalDate().atStartOfDay(), zone, log.getAccessType()), 1L, Long::sum);
+            if (VisitorSketchService.isVisit(log.getAccessType(), log.getSuccess())) {
+                visitorSketchService.add(siteTime.toLocalDate(), zone,
+                    VisitorSketchService.visitorOf(log.getPersonId(), log.getQrCode()));
+            }
+        }
+        // merge and remove are atomic per key, a delta is either taken by a flush or still pending
+        deltas.forEach((bucket, delta) -> pending.merge(bucket, delta, Long::sum));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // The ingestion service depends on this one and has already drained its queue into record()
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.rollup-flush-ms:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Bucket, Long> deltas = new HashMap<>();
+        for (Bucket bucket : new ArrayList<>(pending.keySet())) {
+            Long delta = pending.remove(bucket);
+            if (delta != null) {
+                deltas.put(bucket, delta);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((bucket, delta) -> {
+                int updated = accessRollupRepository.increment(bucket.granularity(), bucket.start(),
+                    bucket.zone(), bucket.accessType(), delta);
+                if (updated == 0) {
+                    accessRollupRepository.save(new AccessRollup(bucket.granularity(), bucket.start(),
+                        bucket.zone(), bucket.accessType(), delta));
+                }
+            }));
+        } catch (Exception e) {
+            // Nothing was applied, keep the deltas for the next flush
+            deltas.forEach((bucket, delta) -> pending.merge(bucket, delta, Long::sum));
+            logger.warn("Access rollup flush of {} buckets failed: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    // Site days [from, to); only closed days, today keeps receiving live deltas
+    public int backfill(LocalDate from, LocalDate to) {
+        if (to.isAfter(LocalDate.now(siteZone))) {
+            throw new IllegalArgumentException("Only days before today can be backfilled");
+        }
+        return rebuild(from, to);
+    }
+
+    private synchronized int rebuild(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        int days = 0;
+        long rows = 0;
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            rows += rebuildDay(day);
+            days++;
+        }
+        if (rows > 0) {
+            logger.info("Rolled up {} access logs over {} days in {} ms", rows, days, (System.nanoTime() - start) / 1_000_000);
+        }
+        return days;
+    }
+
+    private long rebuildDay(LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        List<Object[]> logs = accessLogRepository.findRollupFieldsBetween(toServerTime(day), toServerTime(day.plusDays(1)));
+
+        Map<Bucket, Long> counts = new HashMap<>();
+        Map<String, HyperLogLog> visitors = new HashMap<>();
+        for (Object[] log : logs) {
+            LocalDateTime siteTime = toSiteTime((LocalDateTime) log[0]);
+            String zone = log[1] != null ? (String) log[1] : log[2] != null ? (String) log[2] : UNKNOWN;
+            String accessType = (String) log[3];
+            counts.merge(new Bucket(Granularity.HOUR, siteTime.truncatedTo(ChronoUnit.HOURS), zone, accessType), 1L, Long::sum);
+            counts.merge(new Bucket(Granularity.DAY, dayStart, zone, accessType), 1L, Long::sum);
+            String visitor = VisitorSketchService.visitorOf((String) log[4], (String) log[5]);
+            if (visitor != null && VisitorSketchService.isVisit(accessType, (Boolean) log[6])) {
+                visitors.computeIfAbsent(zone, z -> new HyperLogLog()).add(visitor);
+            }
+        }
+
+        List<AccessRollup> rollups = new ArrayList<>(counts.size());
+        counts.forEach((bucket, count) -> rollups.add(new AccessRollup(bucket.granularity(), bucket.start(),
+            bucket.zone(), bucket.accessType(), count)));
+        transactionTemplate.executeWithoutResult(status -> {
+            accessRollupRepository.deleteRange(Granularity.HOUR, dayStart, dayStart.plusDays(1));
+            accessRollupRepository.deleteRange(Granularity.DAY, dayStart, dayStart.plusDays(1));
+            accessRollupRepository.saveAll(rollups);
+            visitorSketchService.replaceDay(day, visitors);
+        });
+        return logs.size();
+    }
+
+    // Site days [from, to), every day present even without traffic
+    public Map<LocalDate, Long> dailyTotals(LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> totals = new LinkedHashMap<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            totals.put(day, 0L);
+        }
+        for (Object[] row : accessRollupRepository.sumByBucket(Granularity.DAY, from.atStartOfDay(), to.atStartOfDay())) {
+            totals.put(((LocalDateTime) row[0]).toLocalDate(), ((Number) row[1]).longValue());
+        }
+        return totals;
+    }
+
+    // Accesses per hour of the day (0-23) summed over the site days [from, to)
+    public long[] hourOfDayTotals(LocalDate from, LocalDate to) {
+        long[] totals = new long[24];
+        for (Object[] row : accessRollupRepository.sumByBucket(Granularity.HOUR, from.atStartOfDay(), to.atStartOfDay())) {
+            totals[((LocalDateTime) row[0]).getHour()] += ((Number) row[1]).longValue();
+        }
+        return totals;
+    }
+
+    public Map<String, Long> totalsByAccessType(LocalDate from, LocalDate to) {
+        return toMap(accessRollupRepository.sumByAccessType(Granularity.DAY, from.atStartOfDay(), to.atStartOfDay()));
+    }
+
+    public Map<String, Long> totalsByZone(LocalDate from, LocalDate to) {
+        return toMap(accessRollupRepository.sumByZone(Granularity.DAY, from.atStartOfDay(), to.atStartOfDay()));
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(siteZone);
+    }
+
+    private static Map<String, Long> toMap(List<Object[]> rows) {
+        Map<String, Long> result = new HashMap<>();
+        rows.forEach(row -> result.put((String) row[0], ((Number) row[1]).longValue()));
+        return result;
+    }
+
+    private static String zoneOf(AccessLog log) {
+        return log.getZone() != null ? log.getZone() : log.getLocation() != null ? log.getLocation() : UNKNOWN;
+    }
+
+    // access_logs timestamps are server-local, rollup buckets follow the site clock
+    private LocalDateTime toSiteTime(LocalDateTime serverTime) {
+        return serverTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(siteZone).toLocalDateTime();
+    }
+
+    private LocalDateTime toServerTime(LocalDate siteDay) {
+        return siteDay.atStartOfDay(siteZone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
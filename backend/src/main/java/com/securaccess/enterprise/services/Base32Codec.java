@@ -0,0 +1,87 @@
+package com.securaccess.enterprise.services;
+
+import java.util.Arrays;
+
+// Crockford base32: digits and upper-case letters without I, L, O and U. Every character belongs to
+// the QR alphanumeric set, and fixed-width encodings sort lexicographically in numeric order.
+public final class Base32Codec {
+
+    public static final int LONG_LENGTH = 13;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    private Base32Codec() {
+    }
+
+    public static String encode(long value) {
+        char[] chars = new char[LONG_LENGTH];
+        for (int i = LONG_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static long decodeLong(CharSequence encoded) {
+        if (encoded.length() != LONG_LENGTH) {
+            throw new IllegalArgumentException("Expected " + LONG_LENGTH + " base32 characters");
+        }
+        long value = 0;
+        for (int i = 0; i < LONG_LENGTH; i++) {
+            value = (value << 5) | digit(encoded.charAt(i));
+        }
+        return value;
+    }
+
+    // Unpadded, most significant bit first; a trailing partial group is zero-filled
+    public static String encode(byte[] bytes) {
+        StringBuilder out = new StringBuilder((bytes.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : bytes) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bits += 8;
+            while (bits >= 5) {
+                bits -= 5;
+                out.append(ALPHABET[(buffer >>> bits) & 31]);
+            }
+        }
+        if (bits > 0) {
+            out.append(ALPHABET[(buffer << (5 - bits)) & 31]);
+        }
+        return out.toString();
+    }
+
+    public static byte[] decode(CharSequence encoded) {
+        byte[] bytes = new byte[encoded.length() * 5 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            buffer = (buffer << 5) | digit(encoded.charAt(i));
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                bytes[index++] = (byte) (buffer >>> bits);
+            }
+        }
+        return bytes;
+    }
+
+    private static int digit(char c) {
+        int digit = c < 128 ? DECODE[c] : -1;
+        if (digit < 0) {
+            throw new IllegalArgumentException("Invalid base32 character: " + c);
+        }
+        return digit;
+    }
+}
@@ -0,0 +1,81 @@
+package com.securaccess.enterprise.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+// Fixed-capacity multi-producer ring keeping the newest `capacity` items. Producers claim a sequence
+// with one getAndIncrement and publish an immutable slot; readers walk back from the head and keep
+// only slots carrying the sequence they expect, so a snapshot never shows a torn or reordered view.
+public class ConcurrentRingBuffer<T> {
+
+    private record Slot<T>(long sequence, T value) {}
+
+    private final int capacity;
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final AtomicLong head = new AtomicLong();
+
+    public ConcurrentRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    // O(1), returns the item's sequence number
+    public long add(T value) {
+        long sequence = head.getAndIncrement();
+        int index = (int) (sequence % capacity);
+        Slot<T> slot = new Slot<>(sequence, value);
+        Slot<T> current;
+        do {
+            current = slots.get(index);
+            // A producer preempted for a whole lap must not overwrite a newer item
+            if (current != null && current.sequence() > sequence) {
+                return sequence;
+            }
+        } while (!slots.compareAndSet(index, current, slot));
+        return sequence;
+    }
+
+    // Visits items newest first until the visitor returns false; nothing is copied
+    public void forEachNewestFirst(Predicate<? super T> visitor) {
+        long newest = head.get() - 1;
+        long oldest = Math.max(0, newest - capacity + 1);
+        for (long sequence = newest; sequence >= oldest; sequence--) {
+            Slot<T> slot = slots.get((int) (sequence % capacity));
+            if (slot == null || slot.sequence() < sequence) {
+                // Claimed but not yet published: skip it rather than wait for the producer
+                continue;
+            }
+            if (slot.sequence() > sequence) {
+                // Producers have lapped us, everything older is gone as well
+                return;
+            }
+            if (!visitor.test(slot.value())) {
+                return;
+            }
+        }
+    }
+
+    public List<T> snapshot() {
+        List<T> items = new ArrayList<>(size());
+        forEachNewestFirst(items::add);
+        return items;
+    }
+
+    public int size() {
+        return (int) Math.min(head.get(), capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long totalAdded() {
+        return head.get();
+    }
+}
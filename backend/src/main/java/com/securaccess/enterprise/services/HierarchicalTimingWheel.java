@@ -0,0 +1,121 @@
+package com.securaccess.enterprise.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel (Varghese & Lauck): LEVELS wheels of 64 slots, each slot of level n
+// spanning 64^n ticks. Adding a timer is O(1); a timer is cascaded at most LEVELS times before it
+// fires, so a tick costs the timers due in it, not the number of timers pending.
+// Not thread-safe: a single thread owns the wheel and feeds it from its own inbox.
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long TURN_MASK = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private record Timer<T>(long deadlineTick, T item) {}
+
+    private final long tickMillis;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Timer<T>>[][] wheels = new ArrayDeque[LEVELS][SLOTS];
+    // Beyond 64^LEVELS ticks (34 years at one second), re-examined once per full turn
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Returns false when the deadline has already passed; the caller handles it straight away
+    public boolean add(long deadlineMillis, T item) {
+        // Rounded up so a timer never fires before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        place(new Timer<>(deadlineTick, item));
+        size++;
+        return true;
+    }
+
+    // Fires, in tick order, every timer whose deadline is at or before nowMillis
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            // With every wheel empty only the next turn, which reloads the overflow, can fire anything
+            if (size == overflow.size()) {
+                long nextTurn = (currentTick | TURN_MASK) + 1;
+                if (nextTurn > targetTick) {
+                    currentTick = targetTick;
+                    break;
+                }
+                currentTick = nextTurn - 1;
+            }
+            currentTick++;
+            cascade();
+            ArrayDeque<Timer<T>> slot = wheels[0][(int) (currentTick & SLOT_MASK)];
+            if (slot != null) {
+                Timer<T> timer;
+                while ((timer = slot.poll()) != null) {
+                    size--;
+                    expired.accept(timer.item());
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void cascade() {
+        // Entering a new slot of level n redistributes that slot into the levels below
+        for (int level = LEVELS; level >= 1; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            List<Timer<T>> moving;
+            if (level == LEVELS) {
+                moving = new ArrayList<>(overflow);
+                overflow.clear();
+            } else {
+                ArrayDeque<Timer<T>> slot = wheels[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+                if (slot == null || slot.isEmpty()) {
+                    continue;
+                }
+                moving = new ArrayList<>(slot);
+                slot.clear();
+            }
+            moving.forEach(this::place);
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long deadlineTick = timer.deadlineTick();
+        // Lowest level whose higher digits match the current tick, i.e. reached without another cascade
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+                int index = (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                ArrayDeque<Timer<T>> slot = wheels[level][index];
+                if (slot == null) {
+                    slot = new ArrayDeque<>();
+                    wheels[level][index] = slot;
+                }
+                slot.add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+}
@@ -0,0 +1,164 @@
+package com.securaccess.enterprise.services;
+
+import java.nio.charset.StandardCharsets;
+
+// Distinct-count sketch (Flajolet et al.). 2^precision registers keep the longest run of leading
+// zeros seen per hash bucket; the estimate has a standard error of 1.04 / sqrt(2^precision), about
+// 1.6% at the default precision, whatever the number of distinct values. Sketches of the same
+// precision merge by taking register maxima, so day sketches union into weeks and months exactly
+// as if the week had been counted in one sketch.
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    // Serialized form: one header byte (precision, high bit set when sparse), then either every
+    // register packed in 6 bits or, for sketches with few non-zero registers, 3-byte index/value pairs
+    private static final int SPARSE_FLAG = 0x80;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public synchronized void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        // The remaining bits, with a sentinel so the rank is capped at 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " and " + precision);
+        }
+        // Copied first so the two monitors are never held together
+        byte[] theirs = other.copyRegisters();
+        synchronized (this) {
+            for (int i = 0; i < registers.length; i++) {
+                if (theirs[i] > registers[i]) {
+                    registers[i] = theirs[i];
+                }
+            }
+        }
+    }
+
+    public synchronized long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Small cardinalities: linear counting over the empty registers is more accurate
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public double relativeError() {
+        return relativeError(precision);
+    }
+
+    public static double relativeError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public synchronized byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        int denseLength = (registers.length * 6 + 7) / 8;
+        if (nonZero * 3 < denseLength) {
+            byte[] bytes = new byte[1 + nonZero * 3];
+            bytes[0] = (byte) (precision | SPARSE_FLAG);
+            int offset = 1;
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    int entry = (i << 6) | registers[i];
+                    bytes[offset++] = (byte) (entry >>> 16);
+                    bytes[offset++] = (byte) (entry >>> 8);
+                    bytes[offset++] = (byte) entry;
+                }
+            }
+            return bytes;
+        }
+        byte[] bytes = new byte[1 + denseLength];
+        bytes[0] = (byte) precision;
+        for (int i = 0; i < registers.length; i++) {
+            // Big-endian within the 16 bits starting at the register's byte
+            int bit = i * 6;
+            int word = registers[i] << (10 - bit % 8);
+            bytes[1 + bit / 8] |= (byte) (word >>> 8);
+            if (bit % 8 > 2) {
+                bytes[2 + bit / 8] |= (byte) word;
+            }
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog(bytes[0] & ~SPARSE_FLAG & 0xFF);
+        if ((bytes[0] & SPARSE_FLAG) != 0) {
+            for (int offset = 1; offset + 2 < bytes.length; offset += 3) {
+                int entry = (bytes[offset] & 0xFF) << 16 | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF);
+                sketch.registers[entry >>> 6] = (byte) (entry & 0x3F);
+            }
+            return sketch;
+        }
+        for (int i = 0; i < sketch.registers.length; i++) {
+            int bit = i * 6;
+            int word = (bytes[1 + bit / 8] & 0xFF) << 8;
+            if (2 + bit / 8 < bytes.length) {
+                word |= bytes[2 + bit / 8] & 0xFF;
+            }
+            sketch.registers[i] = (byte) ((word >>> (10 - bit % 8)) & 0x3F);
+        }
+        return sketch;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    private synchronized byte[] copyRegisters() {
+        return registers.clone();
+    }
+
+    // FNV-1a over the UTF-8 bytes, then the MurmurHash3 finalizer to spread FNV's weak high bits
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,9 @@
+package com.securaccess.enterprise.services;
+
+import java.util.function.Consumer;
+
+// Anything that issues QR codes and can enumerate them, used to rebuild QrCodeBloomFilter
+public interface IssuedCodeSource {
+
+    void forEachIssuedCode(Consumer<String> consumer);
+}
@@ -0,0 +1,44 @@
+package com.securaccess.enterprise.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+// Position after the last row of a page, newest first on (timestamp, id). Clients get it as an opaque
+// token and hand it back unchanged; the next page seeks straight to it instead of skipping an offset.
+public record KeysetCursor(LocalDateTime timestamp, String id) {
+
+    // Newest first, ties broken by id so rows sharing a timestamp are neither repeated nor skipped
+    public static final Comparator<KeysetCursor> NEWEST_FIRST =
+        Comparator.comparing(KeysetCursor::timestamp).thenComparing(KeysetCursor::id).reversed();
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = timestamp + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public long numericId() {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
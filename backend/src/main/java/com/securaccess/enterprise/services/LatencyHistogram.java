@@ -0,0 +1,100 @@
+package com.securaccess.enterprise.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear latency histogram in the style of HdrHistogram: values up to 2^SUB_BUCKET_BITS
+// microseconds get their own bucket, above that every power of two is split into 64 linear
+// buckets, so any recorded value is known to within 1/64 (about 1.6%). Recording is one
+// lock-free increment; percentiles are read from a copy of the counts.
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+    // 2^27 us is a little over two minutes, slower requests are counted there
+    private static final int HIGHEST_BIT = 27;
+    private static final long MAX_MICROS = (1L << (HIGHEST_BIT + 1)) - 1;
+    private static final int BUCKETS = (HIGHEST_BIT - SUB_BUCKET_BITS + 3) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1_000, 0), MAX_MICROS);
+        counts.incrementAndGet(indexOf(micros));
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    // A point-in-time copy; several can be summed to cover more than one recording interval
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private long total;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            for (long count : counts) {
+                total += count;
+            }
+        }
+
+        public Snapshot add(Snapshot other) {
+            long[] sum = counts.clone();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += other.counts[i];
+            }
+            return new Snapshot(sum);
+        }
+
+        public long getTotalCount() {
+            return total;
+        }
+
+        // Highest value equivalent to the one at the given quantile (0-1), in microseconds
+        public long valueAtQuantile(double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestEquivalent(i);
+                }
+            }
+            return highestEquivalent(counts.length - 1);
+        }
+
+        public long maxValue() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestEquivalent(i);
+                }
+            }
+            return 0;
+        }
+    }
+
+    static int indexOf(long micros) {
+        if (micros < 2 * HALF) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+        return exponent * HALF + (int) (micros >>> exponent);
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < 2 * HALF) {
+            return index;
+        }
+        int exponent = index / HALF - 1;
+        long lowest = (long) (index % HALF + HALF) << exponent;
+        return lowest + (1L << exponent) - 1;
+    }
+}
@@ -0,0 +1,164 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Who is inside which zone right now. Each person moves through a small state machine (outside, or
+// inside exactly one zone); transitions run atomically per person and keep per-zone head counts in step.
+@Service
+public class OccupancyTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyTracker.class);
+
+    private static final String UNKNOWN_ZONE = "unknown";
+
+    public record Presence(String personId, String personName, String zone, LocalDateTime since) {}
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Value("${app.occupancy.replay-hours:24}")
+    private int replayHours;
+
+    // Presences older than this are taken as missed check-outs
+    @Value("${app.occupancy.max-stay-hours:24}")
+    private int maxStayHours;
+
+    private final Map<String, Presence> presences = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> zoneCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+
+    // Runs before the web server accepts scans, replayed and live transitions never interleave
+    @PostConstruct
+    public void replay() {
+        LocalDateTime now = LocalDateTime.now();
+        List<AccessLog> logs = accessLogRepository.findByAccessTimeBetween(now.minusHours(replayHours), now);
+        for (AccessLog log : logs) {
+            apply(log.getPersonId() != null ? log.getPersonId() : log.getQrCode(), log.getPersonName(),
+                log.getZone() != null ? log.getZone() : log.getLocation(), log.getAccessType(),
+                Boolean.TRUE.equals(log.getSuccess()), log.getTimestamp());
+        }
+        logger.info("Occupancy rebuilt from {} access logs: {} people inside", logs.size(), total.get());
+    }
+
+    @EventListener
+    @Order(10)
+    public void onAccess(AccessEvent event) {
+        apply(event.personId() != null ? event.personId() : event.qrCode(), event.personName(),
+            event.zone() != null ? event.zone() : event.location(), event.action(), event.success(), event.timestamp());
+    }
+
+    private void apply(String personId, String personName, String zone, String action, boolean success,
+                       LocalDateTime timestamp) {
+        if (personId == null || action == null || !success) {
+            return;
+        }
+        String target = zone != null ? zone : UNKNOWN_ZONE;
+        switch (action) {
+            // An override is an entry granted by staff, it moves the person in like a check-in
+            case "check-in", "entry", "override" -> presences.compute(personId, (id, current) -> {
+                if (current != null) {
+                    leave(current.zone());
+                }
+                enter(target);
+                return new Presence(id, personName != null ? personName : current != null ? current.personName() : null,
+                    target, timestamp);
+            });
+            // Leaving from another gate than the one entered still ends the visit
+            case "check-out", "exit" -> presences.computeIfPresent(personId, (id, current) -> {
+                leave(current.zone());
+                return null;
+            });
+            default -> {
+            }
+        }
+    }
+
+    private void enter(String zone) {
+        zoneCounts.computeIfAbsent(zone, z -> new AtomicInteger()).incrementAndGet();
+        total.incrementAndGet();
+    }
+
+    private void leave(String zone) {
+        AtomicInteger count = zoneCounts.get(zone);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+        total.decrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${app.occupancy.sweep-interval-ms:300000}")
+    public void expireStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(maxStayHours);
+        int expired = 0;
+        for (String personId : presences.keySet()) {
+            boolean[] removed = new boolean[1];
+            presences.computeIfPresent(personId, (id, current) -> {
+                if (!current.since().isBefore(cutoff)) {
+                    return current;
+                }
+                leave(current.zone());
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            logger.info("Closed {} presences older than {} hours (missed check-out)", expired, maxStayHours);
+        }
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    public int getCount(String zone) {
+        AtomicInteger count = zoneCounts.get(zone);
+        return count != null ? count.get() : 0;
+    }
+
+    public Map<String, Object> snapshot(String zone) {
+        Map<String, Integer> zones = new HashMap<>();
+        zoneCounts.forEach((name, count) -> {
+            int value = count.get();
+            if (value > 0) {
+                zones.put(name, value);
+            }
+        });
+
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("total", total.get());
+        snapshot.put("zones", zones);
+        snapshot.put("timestamp", LocalDateTime.now());
+        if (zone != null) {
+            List<Presence> occupants = new ArrayList<>();
+            presences.values().forEach(presence -> {
+                if (zone.equals(presence.zone())) {
+                    occupants.add(presence);
+                }
+            });
+            snapshot.put("zone", zone);
+            snapshot.put("occupants", occupants);
+        }
+        return snapshot;
+    }
+}
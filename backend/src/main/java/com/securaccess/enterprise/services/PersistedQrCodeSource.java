@@ -0,0 +1,40 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.repositories.HostQrCodeRepository;
+import com.securaccess.enterprise.repositories.QrCodeRepository;
+import com.securaccess.enterprise.repositories.WorkerQrCodeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Every QR code in the database, active or not: an expired or deactivated code was still issued
+// and must be reported as such rather than as unknown. Reads the code column only.
+@Component
+public class PersistedQrCodeSource implements IssuedCodeSource {
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private WorkerQrCodeRepository workerQrCodeRepository;
+
+    @Autowired
+    private HostQrCodeRepository hostQrCodeRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachIssuedCode(Consumer<String> consumer) {
+        try (Stream<String> codes = qrCodeRepository.streamAllCodes()) {
+            codes.forEach(consumer);
+        }
+        try (Stream<String> codes = workerQrCodeRepository.streamAllCodes()) {
+            codes.forEach(consumer);
+        }
+        try (Stream<String> codes = hostQrCodeRepository.streamAllCodes()) {
+            codes.forEach(consumer);
+        }
+    }
+}
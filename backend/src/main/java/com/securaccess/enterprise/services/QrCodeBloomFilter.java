@@ -0,0 +1,118 @@
+package com.securaccess.enterprise.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class QrCodeBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrCodeBloomFilter.class);
+
+    // Looked up at rebuild time: some sources (controllers) depend on this filter themselves
+    @Autowired
+    private ObjectProvider<IssuedCodeSource> sources;
+
+    @Value("${app.qrcode.bloom.expected-codes:100000}")
+    private int expectedCodes;
+
+    @Value("${app.qrcode.bloom.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private volatile ScalableBloomFilter current;
+    private ScalableBloomFilter pending;
+    private volatile LocalDateTime lastRebuild;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final AtomicLong lastIssuedCount = new AtomicLong();
+
+    // Runs once the application is up, alongside QrCodeIndex's load
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void initialize() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${app.qrcode.bloom.rebuild-interval-ms:600000}",
+               fixedDelayString = "${app.qrcode.bloom.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        // Size for what exists plus headroom; the filter still scales if issuance outgrows it
+        int capacity = (int) Math.max(expectedCodes, lastIssuedCount.get() * 3 / 2);
+        ScalableBloomFilter fresh = new ScalableBloomFilter(capacity, falsePositiveRate);
+
+        // Codes issued while the rebuild walks the sources land in both filters
+        synchronized (this) {
+            pending = fresh;
+        }
+        sources.orderedStream().forEach(source -> source.forEachIssuedCode(fresh::put));
+        synchronized (this) {
+            current = fresh;
+            pending = null;
+        }
+
+        lastIssuedCount.set(fresh.count());
+        lastRebuild = LocalDateTime.now();
+        logger.info("QR code bloom filter rebuilt with {} codes ({} bits, {} stages) in {} ms",
+            fresh.count(), fresh.bitCount(), fresh.stageCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void register(String code) {
+        if (code == null) {
+            return;
+        }
+        synchronized (this) {
+            if (current != null) {
+                current.put(code);
+            }
+            if (pending != null) {
+                pending.put(code);
+            }
+        }
+    }
+
+    // false means the code was definitely never issued; true means "maybe", go and check
+    public boolean mightBeIssued(String code) {
+        ScalableBloomFilter filter = current;
+        if (filter == null) {
+            return true;
+        }
+        checks.increment();
+        if (code == null || !filter.mightContain(code)) {
+            rejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        ScalableBloomFilter filter = current;
+        stats.put("ready", filter != null);
+        if (filter != null) {
+            stats.put("codes", filter.count());
+            stats.put("bits", filter.bitCount());
+            stats.put("stages", filter.stageCount());
+            stats.put("targetFalsePositiveRate", filter.getTargetFalsePositiveRate());
+            stats.put("expectedFalsePositiveRate", filter.expectedFalsePositiveRate());
+        }
+        stats.put("checks", checks.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("lastRebuild", lastRebuild);
+        return stats;
+    }
+}
@@ -0,0 +1,59 @@
+package com.securaccess.enterprise.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 63-bit time-ordered identifiers: 41 bits of milliseconds since 2024-01-01, a 12-bit sequence and
+// a 10-bit node id. Ids only grow, so they append at the right edge of a B-tree index, and the
+// 13-character base32 form keeps QR payloads short.
+@Service
+public class QrCodeIdGenerator {
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeId;
+
+    // Milliseconds and sequence packed together, so a single CAS advances both
+    private final AtomicLong state = new AtomicLong();
+
+    public QrCodeIdGenerator(@Value("${app.qrcode.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.qrcode.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = state.get();
+            // Sequence overflow borrows the next millisecond and a clock step back is ignored,
+            // either way the value keeps increasing
+            next = Math.max(previous + 1, now);
+        } while (!state.compareAndSet(previous, next));
+        return (next << NODE_BITS) | nodeId;
+    }
+
+    public String nextCode(String prefix) {
+        return prefix + Base32Codec.encode(nextId());
+    }
+
+    public static long parseId(String code) {
+        if (code == null || code.length() < Base32Codec.LONG_LENGTH) {
+            throw new IllegalArgumentException("Not a generated QR code: " + code);
+        }
+        return Base32Codec.decodeLong(code.substring(code.length() - Base32Codec.LONG_LENGTH));
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+}
@@ -0,0 +1,168 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.HostQrCode;
+import com.securaccess.enterprise.entities.QrCode;
+import com.securaccess.enterprise.entities.QrCodeStatus;
+import com.securaccess.enterprise.entities.WorkerQrCode;
+import com.securaccess.enterprise.repositories.HostQrCodeRepository;
+import com.securaccess.enterprise.repositories.QrCodeRepository;
+import com.securaccess.enterprise.repositories.WorkerQrCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Service
+public class QrCodeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrCodeIndex.class);
+
+    public enum Kind {
+        EVENT("EVT"), WORKER("WORK"), HOST("HOST");
+
+        private final String codePrefix;
+
+        Kind(String codePrefix) {
+            this.codePrefix = codePrefix;
+        }
+
+        public String getCodePrefix() { return codePrefix; }
+    }
+
+    // Immutable validity record, replaced as a whole on every change so readers never see a torn update
+    public static final class Entry {
+        private final Kind kind;
+        private final long ownerId;
+        private final long validFrom;
+        private final long validTo;
+        private final boolean active;
+        private final boolean used;
+
+        Entry(Kind kind, long ownerId, long validFrom, long validTo, boolean active, boolean used) {
+            this.kind = kind;
+            this.ownerId = ownerId;
+            this.validFrom = validFrom;
+            this.validTo = validTo;
+            this.active = active;
+            this.used = used;
+        }
+
+        public boolean isValidAt(long epochMillis) {
+            return active && !used && epochMillis >= validFrom && epochMillis <= validTo;
+        }
+
+        public Kind getKind() { return kind; }
+        public long getOwnerId() { return ownerId; }
+        public long getValidFrom() { return validFrom; }
+        public long getValidTo() { return validTo; }
+        public boolean isActive() { return active; }
+        public boolean isUsed() { return used; }
+    }
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private WorkerQrCodeRepository workerQrCodeRepository;
+
+    @Autowired
+    private HostQrCodeRepository hostQrCodeRepository;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.nanoTime();
+        // putIfAbsent: an incremental update that raced the load is fresher than the row we just read
+        try (Stream<Object[]> rows = qrCodeRepository.streamValidity()) {
+            rows.forEach(row -> entries.putIfAbsent((String) row[0],
+                toEntry(Kind.EVENT, (Long) row[1], null, (LocalDateTime) row[2], (Boolean) row[3], (Boolean) row[4])));
+        }
+        try (Stream<Object[]> rows = workerQrCodeRepository.streamValidity()) {
+            rows.forEach(row -> entries.putIfAbsent((String) row[0],
+                toEntry(Kind.WORKER, (Long) row[1], (LocalDateTime) row[2], (LocalDateTime) row[3], (Boolean) row[4], (Boolean) row[5])));
+        }
+        try (Stream<Object[]> rows = hostQrCodeRepository.streamValidity()) {
+            rows.forEach(row -> entries.putIfAbsent((String) row[0],
+                toEntry(Kind.HOST, (Long) row[1], (LocalDateTime) row[2], (LocalDateTime) row[3], (Boolean) row[4], (Boolean) row[5])));
+        }
+        loaded = true;
+        logger.info("QR code index loaded with {} codes in {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Entry get(String code) {
+        return code != null ? entries.get(code) : null;
+    }
+
+    public boolean isValid(String code, long epochMillis) {
+        Entry entry = get(code);
+        return entry != null && entry.isValidAt(epochMillis);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void put(QrCode qrCode) {
+        Long ownerId = qrCode.getUtilisateur() != null ? qrCode.getUtilisateur().getId() : null;
+        entries.put(qrCode.getCode(), toEntry(Kind.EVENT, ownerId, null,
+            qrCode.getDateExpiration(), qrCode.getActif(), qrCode.getUtilise()));
+    }
+
+    public void put(WorkerQrCode qrCode) {
+        Long ownerId = qrCode.getWorker() != null ? qrCode.getWorker().getId() : null;
+        entries.put(qrCode.getCode(), toEntry(Kind.WORKER, ownerId, qrCode.getGeneratedAt(),
+            qrCode.getExpiresAt(), qrCode.getIsValid(), qrCode.getIsUsed()));
+    }
+
+    public void put(HostQrCode qrCode) {
+        Long ownerId = qrCode.getHost() != null ? qrCode.getHost().getId() : null;
+        entries.put(qrCode.getCode(), toEntry(Kind.HOST, ownerId, qrCode.getGeneratedAt(),
+            qrCode.getExpiresAt(), qrCode.getIsValid(), qrCode.getIsUsed()));
+    }
+
+    // Expired codes can never become valid again without an update, which puts them back
+    @EventListener
+    public void onStatusChange(QrCodeStatusChange change) {
+        if (change.status() == QrCodeStatus.EXPIRED) {
+            remove(change.code());
+        }
+    }
+
+    public void remove(String code) {
+        if (code != null) {
+            entries.remove(code);
+        }
+    }
+
+    private static Entry toEntry(Kind kind, Long ownerId, LocalDateTime validFrom, LocalDateTime validTo,
+                                 Boolean active, Boolean used) {
+        return new Entry(kind,
+            ownerId != null ? ownerId : 0L,
+            validFrom != null ? toEpochMillis(validFrom) : Long.MIN_VALUE,
+            validTo != null ? toEpochMillis(validTo) : Long.MAX_VALUE,
+            Boolean.TRUE.equals(active),
+            Boolean.TRUE.equals(used));
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,101 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.HostQrCode;
+import com.securaccess.enterprise.entities.QrCode;
+import com.securaccess.enterprise.entities.WorkerQrCode;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// JPA entity listener keeping QrCodeIndex in sync with every insert, update and delete of a QR code
+@Component
+public class QrCodeIndexListener {
+
+    // Resolved lazily: Hibernate instantiates listeners while the EntityManagerFactory is still being built
+    @Autowired
+    private ObjectProvider<QrCodeIndex> qrCodeIndex;
+
+    @Autowired
+    private ObjectProvider<QrCodeBloomFilter> qrCodeBloomFilter;
+
+    @Autowired
+    private ObjectProvider<SignedQrTokenService> signedQrTokenService;
+
+    @Autowired
+    private ObjectProvider<QrExpiryScheduler> qrExpiryScheduler;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        afterCommit(() -> {
+            QrCodeIndex index = qrCodeIndex.getObject();
+            QrCodeBloomFilter bloomFilter = qrCodeBloomFilter.getObject();
+            String code;
+            if (entity instanceof QrCode qrCode) {
+                index.put(qrCode);
+                code = qrCode.getCode();
+            } else if (entity instanceof WorkerQrCode workerQrCode) {
+                index.put(workerQrCode);
+                code = workerQrCode.getCode();
+                qrExpiryScheduler.getObject().track(code, QrCodeIndex.Kind.WORKER,
+                    workerQrCode.getGeneratedAt(), workerQrCode.getExpiresAt(), true);
+            } else if (entity instanceof HostQrCode hostQrCode) {
+                index.put(hostQrCode);
+                code = hostQrCode.getCode();
+                qrExpiryScheduler.getObject().track(code, QrCodeIndex.Kind.HOST,
+                    hostQrCode.getGeneratedAt(), hostQrCode.getExpiresAt(), true);
+            } else {
+                return;
+            }
+            bloomFilter.register(code);
+
+            // Signed tokens of deactivated or consumed codes stay rejected until they expire
+            QrCodeIndex.Entry entry = index.get(code);
+            if (entry != null && (!entry.isActive() || entry.isUsed())) {
+                signedQrTokenService.getObject().revoke(code, entry.getValidTo());
+            } else {
+                signedQrTokenService.getObject().reinstate(code);
+            }
+        });
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        afterCommit(() -> {
+            String code;
+            if (entity instanceof QrCode qrCode) {
+                code = qrCode.getCode();
+            } else if (entity instanceof WorkerQrCode workerQrCode) {
+                code = workerQrCode.getCode();
+            } else if (entity instanceof HostQrCode hostQrCode) {
+                code = hostQrCode.getCode();
+            } else {
+                return;
+            }
+            QrCodeIndex index = qrCodeIndex.getObject();
+            QrCodeIndex.Entry entry = index.get(code);
+            index.remove(code);
+            qrExpiryScheduler.getObject().untrack(code);
+            signedQrTokenService.getObject().revoke(code, entry != null ? entry.getValidTo() : Long.MAX_VALUE);
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        // A rolled back change must never become visible to the gates
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
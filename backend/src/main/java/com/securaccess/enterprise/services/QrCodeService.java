@@ -1,32 +1,26 @@
 package com.securaccess.enterprise.services;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import com.securaccess.enterprise.entities.QrCode;
 import com.securaccess.enterprise.entities.Utilisateur;
 import com.securaccess.enterprise.entities.Evenement;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.securaccess.enterprise.repositories.QrCodeRepository;
 import com.securaccess.enterprise.repositories.UtilisateurRepository;
 import com.securaccess.enterprise.repositories.EvenementRepository;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.util.Base64;
-import java.util.HashMap;
+import java.time.ZoneId;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import javax.imageio.ImageIO;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 public class QrCodeService {
@@ -40,7 +34,20 @@ public class QrCodeService {
     @Autowired
     private EvenementRepository evenementRepository;
     
-    private static final int QR_CODE_SIZE = 300;
+    @Autowired
+    private QrImageStore qrImageStore;
+    
+    @Autowired
+    private QrCodeIndex qrCodeIndex;
+    
+    @Autowired
+    private QrCodeBloomFilter qrCodeBloomFilter;
+    
+    @Autowired
+    private QrCodeIdGenerator qrCodeIdGenerator;
+    
+    @Autowired
+    private SignedQrTokenService signedQrTokenService;
     
     public QrCode genererQrCodePourUtilisateur(Long utilisateurId, Long evenementId, int validiteDureeHeures) {
         Optional<Utilisateur> utilisateur = utilisateurRepository.findById(utilisateurId);
@@ -54,7 +61,7 @@ public class QrCodeService {
             throw new IllegalArgumentException("Événement non trouvé avec l'ID: " + evenementId);
         }
         
-        String codeUnique = UUID.randomUUID().toString();
+        String codeUnique = qrCodeIdGenerator.nextCode(QrCodeIndex.Kind.EVENT.getCodePrefix());
         LocalDateTime expiration = LocalDateTime.now().plusHours(validiteDureeHeures);
         
         QrCode qrCode = new QrCode();
@@ -64,8 +71,12 @@ public class QrCodeService {
         qrCode.setDateCreation(LocalDateTime.now());
         
         try {
-            String qrImageBase64 = genererImageQrCode(codeUnique);
-            // Image data would be stored separately or in a different field
+            // With signing enabled the QR carries a self-verifying token instead of the bare code
+            String contenu = signedQrTokenService.isEnabled()
+                ? signedQrTokenService.issue(codeUnique, QrCodeIndex.Kind.EVENT, evenement.get().getLieu(), null,
+                    expiration.atZone(ZoneId.systemDefault()).toInstant())
+                : codeUnique;
+            qrCode.setImageHash(qrImageStore.store(contenu));
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la génération de l'image QR", e);
         }
@@ -91,8 +102,41 @@ public class QrCodeService {
     }
     
     public List<QrCode> obtenirParEvenement(Long evenementId) {
-        // This would need to be implemented with proper relationships
-        return qrCodeRepository.findAll(); // Simplified for now
+        return qrCodeRepository.findByEvenementId(evenementId);
+    }
+    
+    public boolean evenementExiste(Long evenementId) {
+        return evenementRepository.existsById(evenementId);
+    }
+    
+    @Transactional(readOnly = true)
+    public void exporterImagesEvenement(Long evenementId, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // PNG data is already deflated, recompressing it only burns CPU
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        
+        try (Stream<Object[]> rows = qrCodeRepository.streamCodesAndImageHashesByEvenementId(evenementId)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                String code = (String) row[0];
+                byte[] png;
+                try {
+                    // The same bytes the badge was issued with, not a re-render of the bare code
+                    png = qrImageStore.imageForCode(code, (String) row[1]);
+                } catch (Exception e) {
+                    throw new IOException("Erreur lors de la génération de l'image QR pour " + code, e);
+                }
+                zip.putNextEntry(new ZipEntry(code + ".png"));
+                zip.write(png);
+                zip.closeEntry();
+            }
+        }
+        zip.finish();
+    }
+    
+    public Optional<byte[]> obtenirImageParCode(String code) throws Exception {
+        return qrImageStore.imageForCode(code);
     }
     
     public List<QrCode> obtenirQrCodesActifs() {
@@ -105,12 +149,43 @@ public class QrCodeService {
     }
     
     public boolean validerQrCode(String code) {
-        // Simplified validation - just check if code exists and is active
+        // Signed tokens are checked on the CPU alone, no index or database involved
+        if (signedQrTokenService.isToken(code)) {
+            return signedQrTokenService.verify(code, System.currentTimeMillis()).valid();
+        }
+        // Unknown codes (misreads, other systems, probing) are rejected before any lookup
+        if (!qrCodeBloomFilter.mightBeIssued(code)) {
+            return false;
+        }
+        // Answered from the in-memory index once it is loaded, the database is only hit during startup
+        if (qrCodeIndex.isLoaded()) {
+            return qrCodeIndex.isValid(code, System.currentTimeMillis());
+        }
         Optional<QrCode> qrCode = qrCodeRepository.findByCode(code);
-        return qrCode.isPresent() && qrCode.get().getActif();
+        return qrCode.isPresent() && qrCode.get().isValide();
+    }
+    
+    public List<Map<String, Object>> verifierJetonsSignes(List<String> jetons) {
+        return signedQrTokenService.verifyAll(jetons, System.currentTimeMillis()).stream()
+            .map(SignedQrTokenService::describe)
+            .toList();
     }
     
     public String utiliserQrCode(String code) {
+        if (signedQrTokenService.isToken(code)) {
+            SignedQrTokenService.Verification verification = signedQrTokenService.verify(code, System.currentTimeMillis());
+            if (!verification.valid()) {
+                return "QR Code invalide ou expiré";
+            }
+            code = verification.claims().code();
+        }
+        if (!qrCodeBloomFilter.mightBeIssued(code)) {
+            return "QR Code invalide ou expiré";
+        }
+        if (qrCodeIndex.isLoaded() && !qrCodeIndex.isValid(code, System.currentTimeMillis())) {
+            return "QR Code invalide ou expiré";
+        }
+        
         Optional<QrCode> qrCodeOpt = qrCodeRepository.findByCode(code);
         
         if (!qrCodeOpt.isPresent() || !qrCodeOpt.get().getActif()) {
@@ -123,6 +198,10 @@ public class QrCodeService {
         return "Accès autorisé";
     }
     
+    public Map<String, Object> obtenirStatistiquesFiltre() {
+        return qrCodeBloomFilter.getStats();
+    }
+    
     public void desactiverQrCode(Long id) {
         Optional<QrCode> qrCodeOpt = qrCodeRepository.findById(id);
         if (qrCodeOpt.isPresent()) {
@@ -146,47 +225,11 @@ public class QrCodeService {
     }
     
     public long compterQrCodesParEvenement(Long evenementId) {
-        // Simplified implementation
-        return qrCodeRepository.count();
+        return qrCodeRepository.countByEvenementId(evenementId);
     }
     
     public long compterQrCodesUtilises(Long evenementId) {
         // Simplified implementation
         return 0L;
     }
-    
-    private String genererImageQrCode(String contenu) throws WriterException, IOException {
-        Map<EncodeHintType, Object> hints = new HashMap<>();
-        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
-        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-        hints.put(EncodeHintType.MARGIN, 1);
-        
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(contenu, BarcodeFormat.QR_CODE, 
-                                                  QR_CODE_SIZE, QR_CODE_SIZE, hints);
-        
-        BufferedImage image = new BufferedImage(QR_CODE_SIZE, QR_CODE_SIZE, 
-                                                BufferedImage.TYPE_INT_RGB);
-        
-        Graphics2D graphics = image.createGraphics();
-        graphics.setColor(Color.WHITE);
-        graphics.fillRect(0, 0, QR_CODE_SIZE, QR_CODE_SIZE);
-        graphics.setColor(Color.BLACK);
-        
-        for (int x = 0; x < QR_CODE_SIZE; x++) {
-            for (int y = 0; y < QR_CODE_SIZE; y++) {
-                if (bitMatrix.get(x, y)) {
-                    graphics.fillRect(x, y, 1, 1);
-                }
-            }
-        }
-        
-        graphics.dispose();
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(image, "PNG", outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        
-        return Base64.getEncoder().encodeToString(imageBytes);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.QrCodeStatus;
+
+// Published by QrExpiryScheduler when a code crosses the start or the end of its validity window
+public record QrCodeStatusChange(String code, QrCodeIndex.Kind kind, QrCodeStatus status) {
+}
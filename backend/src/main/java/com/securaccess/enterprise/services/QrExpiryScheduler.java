@@ -0,0 +1,229 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.QrCodeStatus;
+import com.securaccess.enterprise.repositories.HostQrCodeRepository;
+import com.securaccess.enterprise.repositories.WorkerQrCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Moves QR codes between not_yet_valid, active and expired when their window opens or closes,
+// so reads compare a stored status instead of the clock. Transitions wait in a timing wheel owned
+// by the scheduler thread; other threads only append to a lock-free inbox.
+@Service
+public class QrExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QrExpiryScheduler.class);
+
+    // Identity matters: a timer whose Tracked is no longer the current one for its code is stale
+    private static final class Tracked {
+        private final String code;
+        private final QrCodeIndex.Kind kind;
+        private final long validFrom;
+        private final long validTo;
+        private final boolean persisted;
+
+        private Tracked(String code, QrCodeIndex.Kind kind, long validFrom, long validTo, boolean persisted) {
+            this.code = code;
+            this.kind = kind;
+            this.validFrom = validFrom;
+            this.validTo = validTo;
+            this.persisted = persisted;
+        }
+    }
+
+    @Autowired
+    private WorkerQrCodeRepository workerQrCodeRepository;
+
+    @Autowired
+    private HostQrCodeRepository hostQrCodeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.qrcode.expiry.batch-size:500}")
+    private int batchSize;
+
+    private final HierarchicalTimingWheel<Tracked> wheel;
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+    private final Queue<Tracked> inbox = new ConcurrentLinkedQueue<>();
+
+    // Status updates waiting for the next flush, the latest one per code wins
+    private final Map<QrCodeIndex.Kind, Map<String, QrCodeStatus>> pendingUpdates = new EnumMap<>(QrCodeIndex.Kind.class);
+
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder persistedUpdates = new LongAdder();
+
+    public QrExpiryScheduler(@Value("${app.qrcode.expiry.tick-ms:1000}") long tickMillis) {
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, System.currentTimeMillis());
+    }
+
+    // Before QrCodeBloomFilter (order 10); also repairs statuses that went stale while we were down
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(5)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int loaded = load(QrCodeIndex.Kind.WORKER, workerQrCodeRepository.streamSchedule(), now)
+            + load(QrCodeIndex.Kind.HOST, hostQrCodeRepository.streamSchedule(), now);
+        logger.info("QR expiry scheduler loaded {} codes in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int load(QrCodeIndex.Kind kind, Stream<Object[]> rows, LocalDateTime now) {
+        int[] count = {0};
+        try (rows) {
+            rows.forEach(row -> {
+                String code = (String) row[0];
+                LocalDateTime validFrom = (LocalDateTime) row[1];
+                LocalDateTime validTo = (LocalDateTime) row[2];
+                QrCodeStatus actual = QrCodeStatus.at(validFrom, validTo, now);
+                if (actual != row[3]) {
+                    queueUpdate(kind, code, actual);
+                }
+                track(code, kind, validFrom, validTo, true);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    // persisted: the code is a WorkerQrCode or HostQrCode row whose status column must follow
+    public void track(String code, QrCodeIndex.Kind kind, LocalDateTime validFrom, LocalDateTime validTo, boolean persisted) {
+        if (code == null) {
+            return;
+        }
+        Tracked entry = new Tracked(code, kind, toEpochMillis(validFrom, Long.MIN_VALUE),
+            toEpochMillis(validTo, Long.MAX_VALUE), persisted);
+        tracked.put(code, entry);
+        inbox.add(entry);
+    }
+
+    public void untrack(String code) {
+        if (code != null) {
+            tracked.remove(code);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.qrcode.expiry.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<QrCodeStatusChange> changes = new ArrayList<>();
+
+        Tracked entry;
+        while ((entry = inbox.poll()) != null) {
+            schedule(entry, now, changes);
+        }
+        wheel.advanceTo(now, due -> fire(due, now, changes));
+
+        changes.forEach(eventPublisher::publishEvent);
+        flush();
+    }
+
+    private void schedule(Tracked entry, long now, List<QrCodeStatusChange> changes) {
+        // The next boundary: the start of the window, then the end of it
+        long deadline = now < entry.validFrom ? entry.validFrom : entry.validTo;
+        if (deadline == Long.MAX_VALUE) {
+            return;
+        }
+        // validTo is inclusive: a code expires the first millisecond after it
+        long boundary = deadline == entry.validTo ? deadline + 1 : deadline;
+        if (!wheel.add(boundary, entry)) {
+            // The boundary has already passed
+            fire(entry, now, changes);
+        }
+    }
+
+    private void fire(Tracked entry, long now, List<QrCodeStatusChange> changes) {
+        if (tracked.get(entry.code) != entry) {
+            return;
+        }
+        QrCodeStatus status = now < entry.validFrom ? QrCodeStatus.NOT_YET_VALID
+            : now > entry.validTo ? QrCodeStatus.EXPIRED : QrCodeStatus.ACTIVE;
+        transitions.increment();
+        changes.add(new QrCodeStatusChange(entry.code, entry.kind, status));
+        if (entry.persisted) {
+            queueUpdate(entry.kind, entry.code, status);
+        }
+        if (status == QrCodeStatus.EXPIRED) {
+            tracked.remove(entry.code, entry);
+        } else {
+            schedule(entry, now, changes);
+        }
+    }
+
+    private void queueUpdate(QrCodeIndex.Kind kind, String code, QrCodeStatus status) {
+        synchronized (pendingUpdates) {
+            pendingUpdates.computeIfAbsent(kind, k -> new HashMap<>()).put(code, status);
+        }
+    }
+
+    private void flush() {
+        Map<QrCodeIndex.Kind, Map<String, QrCodeStatus>> updates;
+        synchronized (pendingUpdates) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            updates = new EnumMap<>(pendingUpdates);
+            pendingUpdates.clear();
+        }
+
+        updates.forEach((kind, statuses) -> {
+            // One UPDATE ... WHERE code IN (...) per status and batch instead of one per code
+            Map<QrCodeStatus, List<String>> byStatus = new EnumMap<>(QrCodeStatus.class);
+            statuses.forEach((code, status) -> byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(code));
+            byStatus.forEach((status, codes) -> {
+                for (int from = 0; from < codes.size(); from += batchSize) {
+                    List<String> batch = codes.subList(from, Math.min(from + batchSize, codes.size()));
+                    try {
+                        int updated = kind == QrCodeIndex.Kind.HOST
+                            ? hostQrCodeRepository.updateStatus(status, batch)
+                            : workerQrCodeRepository.updateStatus(status, batch);
+                        persistedUpdates.add(updated);
+                    } catch (Exception e) {
+                        // Retried on the next tick; a newer status queued meanwhile wins over this one
+                        synchronized (pendingUpdates) {
+                            Map<String, QrCodeStatus> pending = pendingUpdates.computeIfAbsent(kind, k -> new HashMap<>());
+                            batch.forEach(code -> pending.putIfAbsent(code, status));
+                        }
+                        logger.warn("QR status update of {} {} codes to {} failed: {}", batch.size(), kind, status, e.getMessage());
+                    }
+                }
+            });
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tracked", tracked.size());
+        stats.put("transitions", transitions.sum());
+        stats.put("persistedUpdates", persistedUpdates.sum());
+        stats.put("tickMs", wheel.getTickMillis());
+        return stats;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime, long fallback) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : fallback;
+    }
+}
@@ -0,0 +1,113 @@
+package com.securaccess.enterprise.services;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class QrImageCache {
+
+    @FunctionalInterface
+    public interface Renderer {
+        byte[] render() throws Exception;
+    }
+
+    private record RenderKey(String content, int width, int height, ErrorCorrectionLevel level) {
+    }
+
+    @Value("${app.qrcode.image-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${app.qrcode.image-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    // Access-ordered so the eldest entry is always the least recently used one
+    private final LinkedHashMap<RenderKey, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public byte[] getOrRender(String content, int width, int height, ErrorCorrectionLevel level,
+                              Renderer renderer) throws Exception {
+        RenderKey key = new RenderKey(content, width, height, level);
+
+        synchronized (entries) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        // Render outside the lock: a concurrent miss on the same key only costs a duplicate render
+        misses.increment();
+        byte[] image = renderer.render();
+
+        if (image.length <= maxBytes) {
+            synchronized (entries) {
+                byte[] previous = entries.put(key, image);
+                if (previous != null) {
+                    currentBytes -= previous.length;
+                }
+                currentBytes += image.length;
+                evictIfNeeded();
+            }
+        }
+        return image;
+    }
+
+    public void invalidate(String content) {
+        synchronized (entries) {
+            Iterator<Map.Entry<RenderKey, byte[]>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<RenderKey, byte[]> entry = iterator.next();
+                if (entry.getKey().content().equals(content)) {
+                    currentBytes -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            currentBytes = 0;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", currentBytes);
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        return stats;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<RenderKey, byte[]>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<RenderKey, byte[]> eldest = iterator.next();
+            currentBytes -= eldest.getValue().length;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+}
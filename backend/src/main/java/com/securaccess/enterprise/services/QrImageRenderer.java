@@ -0,0 +1,220 @@
+package com.securaccess.enterprise.services;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+@Service
+public class QrImageRenderer {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLTE = "PLTE".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    // Palette index 0 is the white background, index 1 a black module
+    private static final byte[] PALETTE = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x00, 0x00, 0x00};
+
+    private static final byte BIT_DEPTH = 1;
+    private static final byte COLOR_TYPE_INDEXED = 3;
+    private static final byte FILTER_NONE = 0;
+
+    // Scanline buffers, deflater and CRC are reused per thread so a render only allocates its result
+    private static final ThreadLocal<RenderBuffers> BUFFERS = ThreadLocal.withInitial(RenderBuffers::new);
+
+    private final QRCodeWriter qrCodeWriter = new QRCodeWriter();
+    private final Map<ErrorCorrectionLevel, Map<EncodeHintType, Object>> hintsByLevel = new EnumMap<>(ErrorCorrectionLevel.class);
+
+    public QrImageRenderer() {
+        for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+            Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+            hints.put(EncodeHintType.ERROR_CORRECTION, level);
+            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+            hints.put(EncodeHintType.MARGIN, 1);
+            hintsByLevel.put(level, hints);
+        }
+    }
+
+    public BitMatrix encode(String content, int width, int height, ErrorCorrectionLevel level) throws WriterException {
+        return qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height, hintsByLevel.get(level));
+    }
+
+    public byte[] renderPng(String content, int width, int height, ErrorCorrectionLevel level) throws WriterException {
+        return toPng(encode(content, width, height, level));
+    }
+
+    public byte[] toPng(BitMatrix matrix) {
+        RenderBuffers buffers = BUFFERS.get();
+        buffers.output.reset();
+        writeChunks(matrix, buffers, buffers.output);
+        return buffers.output.toByteArray();
+    }
+
+    public void writePng(BitMatrix matrix, OutputStream out) throws IOException {
+        RenderBuffers buffers = BUFFERS.get();
+        buffers.output.reset();
+        writeChunks(matrix, buffers, buffers.output);
+        out.write(buffers.output.array(), 0, buffers.output.size());
+    }
+
+    private void writeChunks(BitMatrix matrix, RenderBuffers buffers, ByteSink sink) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        sink.write(PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+
+        byte[] header = buffers.header;
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = BIT_DEPTH;
+        header[9] = COLOR_TYPE_INDEXED;
+        header[10] = 0; // deflate compression
+        header[11] = 0; // adaptive filtering
+        header[12] = 0; // no interlace
+        writeChunk(sink, buffers.crc, IHDR, header, header.length);
+        writeChunk(sink, buffers.crc, PLTE, PALETTE, PALETTE.length);
+
+        int compressedLength = compressScanlines(matrix, buffers);
+        writeChunk(sink, buffers.crc, IDAT, buffers.compressed, compressedLength);
+        writeChunk(sink, buffers.crc, IEND, buffers.header, 0);
+    }
+
+    private int compressScanlines(BitMatrix matrix, RenderBuffers buffers) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) >>> 3;
+        int stride = rowBytes + 1;
+
+        byte[] raw = buffers.raw(stride * height);
+        BitArray row = buffers.row(width);
+
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            int[] words = row.getBitArray();
+            int offset = y * stride;
+            raw[offset] = FILTER_NONE;
+            for (int b = 0; b < rowBytes; b++) {
+                // BitArray stores x=0 in the lowest bit, PNG wants the leftmost pixel in the highest bit
+                int bits = (words[b >>> 2] >>> ((b & 3) << 3)) & 0xFF;
+                raw[offset + 1 + b] = (byte) (Integer.reverse(bits) >>> 24);
+            }
+        }
+        buffers.rowCache = row;
+
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, stride * height);
+        deflater.finish();
+
+        int length = 0;
+        byte[] compressed = buffers.compressed;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                buffers.compressed = compressed;
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return length;
+    }
+
+    private static void writeChunk(ByteSink sink, CRC32 crc, byte[] type, byte[] data, int length) {
+        sink.writeInt(length);
+        sink.write(type, 0, type.length);
+        sink.write(data, 0, length);
+
+        crc.reset();
+        crc.update(type, 0, type.length);
+        crc.update(data, 0, length);
+        sink.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static final class RenderBuffers {
+        private final byte[] header = new byte[13];
+        private final CRC32 crc = new CRC32();
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final ByteSink output = new ByteSink(4096);
+        private byte[] compressed = new byte[4096];
+        private byte[] rawScanlines = new byte[0];
+        private BitArray rowCache;
+
+        private byte[] raw(int size) {
+            if (rawScanlines.length < size) {
+                rawScanlines = new byte[size];
+            }
+            return rawScanlines;
+        }
+
+        private BitArray row(int width) {
+            if (rowCache == null || rowCache.getSize() < width) {
+                rowCache = new BitArray(width);
+            }
+            return rowCache;
+        }
+    }
+
+    private static final class ByteSink {
+        private byte[] buffer;
+        private int size;
+
+        private ByteSink(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        private void reset() {
+            size = 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private byte[] array() {
+            return buffer;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void write(byte[] data, int offset, int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(data, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void writeInt(int value) {
+            ensureCapacity(size + 4);
+            putInt(buffer, size, value);
+            size += 4;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.securaccess.enterprise.services;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.securaccess.enterprise.entities.QrCodeImage;
+import com.securaccess.enterprise.repositories.HostQrCodeRepository;
+import com.securaccess.enterprise.repositories.QrCodeImageRepository;
+import com.securaccess.enterprise.repositories.QrCodeRepository;
+import com.securaccess.enterprise.repositories.WorkerQrCodeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// Content-addressed store for QR images. Rows only hold the hash; an image request goes through the
+// render cache, then the qr_code_images side table, and is rendered from the code when nothing was stored.
+@Service
+public class QrImageStore {
+
+    public static final int IMAGE_SIZE = 300;
+    public static final ErrorCorrectionLevel ERROR_CORRECTION = ErrorCorrectionLevel.M;
+
+    @Autowired
+    private QrCodeImageRepository qrCodeImageRepository;
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private WorkerQrCodeRepository workerQrCodeRepository;
+
+    @Autowired
+    private HostQrCodeRepository hostQrCodeRepository;
+
+    @Autowired
+    private QrImageRenderer qrImageRenderer;
+
+    @Autowired
+    private QrImageCache qrImageCache;
+
+    // Renders the content and stores the PNG once, returning the hash to keep on the QR code row
+    public String store(String content) throws Exception {
+        byte[] png = qrImageRenderer.renderPng(content, IMAGE_SIZE, IMAGE_SIZE, ERROR_CORRECTION);
+        String hash = hash(png);
+        // The renderer is deterministic, the same content always lands on the same row
+        if (!qrCodeImageRepository.existsById(hash)) {
+            qrCodeImageRepository.save(new QrCodeImage(hash, png));
+        }
+        return hash;
+    }
+
+    // Empty when no QR code with this code exists
+    public Optional<byte[]> imageForCode(String code) throws Exception {
+        Optional<String> hash = findImageHash(code);
+        if (hash.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(imageForCode(code, hash.get()));
+    }
+
+    // The image issued for a code whose hash the caller already read ('' when none was stored).
+    // The stored PNG is what was handed out, signed payload included; only codes issued before
+    // images were stored are rendered from the bare code.
+    public byte[] imageForCode(String code, String hash) throws Exception {
+        return qrImageCache.getOrRender(code, IMAGE_SIZE, IMAGE_SIZE, ERROR_CORRECTION, () -> {
+            if (!hash.isEmpty()) {
+                Optional<byte[]> stored = qrCodeImageRepository.findPngByHash(hash);
+                if (stored.isPresent()) {
+                    return stored.get();
+                }
+            }
+            return qrImageRenderer.renderPng(code, IMAGE_SIZE, IMAGE_SIZE, ERROR_CORRECTION);
+        });
+    }
+
+    private Optional<String> findImageHash(String code) {
+        // Narrow single-column lookups, the image bytes are never part of a QR code row
+        Optional<String> hash = qrCodeRepository.findImageHashByCode(code);
+        if (hash.isEmpty()) {
+            hash = workerQrCodeRepository.findImageHashByCode(code);
+        }
+        if (hash.isEmpty()) {
+            hash = hostQrCodeRepository.findImageHashByCode(code);
+        }
+        return hash;
+    }
+
+    private static String hash(byte[] png) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.securaccess.enterprise.services;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency, throughput and error counts of the gate-facing endpoints, per endpoint and outcome,
+// rendered in the Prometheus text format. Counts and sums are cumulative as Prometheus expects;
+// percentiles cover the current and the previous interval, so they follow recent traffic instead
+// of being diluted by the whole uptime.
+@Service
+public class RequestMetrics {
+
+    public enum Outcome { OK, REJECTED, ERROR }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private record Key(String endpoint, Outcome outcome) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byEndpoint = endpoint.compareTo(other.endpoint);
+            return byEndpoint != 0 ? byEndpoint : outcome.compareTo(other.outcome);
+        }
+    }
+
+    private static final class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        volatile LatencyHistogram current = new LatencyHistogram();
+        volatile LatencyHistogram previous = new LatencyHistogram();
+    }
+
+    private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, Outcome outcome, long nanos) {
+        Key key = new Key(endpoint, outcome);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> new Timer());
+        }
+        timer.count.increment();
+        timer.totalNanos.add(nanos);
+        // A recording that races the rotation lands in the previous interval, still reported once more
+        timer.current.recordNanos(nanos);
+    }
+
+    @Scheduled(fixedRateString = "${app.metrics.interval-ms:60000}")
+    public void rotate() {
+        for (Timer timer : timers.values()) {
+            timer.previous = timer.current;
+            timer.current = new LatencyHistogram();
+        }
+    }
+
+    public String scrape() {
+        Map<Key, Timer> sorted = new TreeMap<>(timers);
+        StringBuilder out = new StringBuilder(256 + sorted.size() * 512);
+
+        out.append("# HELP securaccess_request_duration_seconds Time from request to decision, by endpoint and outcome\n");
+        out.append("# TYPE securaccess_request_duration_seconds summary\n");
+        sorted.forEach((key, timer) -> {
+            LatencyHistogram.Snapshot recent = timer.previous.snapshot().add(timer.current.snapshot());
+            for (double quantile : QUANTILES) {
+                sample(out, "securaccess_request_duration_seconds", key, "quantile", format(quantile),
+                    recent.valueAtQuantile(quantile) / 1e6);
+            }
+            sample(out, "securaccess_request_duration_seconds_sum", key, null, null, timer.totalNanos.sum() / 1e9);
+            sample(out, "securaccess_request_duration_seconds_count", key, null, null, timer.count.sum());
+        });
+
+        out.append("# HELP securaccess_request_duration_max_seconds Slowest request over the last interval\n");
+        out.append("# TYPE securaccess_request_duration_max_seconds gauge\n");
+        sorted.forEach((key, timer) -> sample(out, "securaccess_request_duration_max_seconds", key, null, null,
+            timer.previous.snapshot().add(timer.current.snapshot()).maxValue() / 1e6));
+
+        out.append("# HELP securaccess_requests_total Requests handled, by endpoint and outcome\n");
+        out.append("# TYPE securaccess_requests_total counter\n");
+        sorted.forEach((key, timer) -> sample(out, "securaccess_requests_total", key, null, null, timer.count.sum()));
+
+        out.append("# HELP securaccess_request_errors_total Requests that failed with a server error\n");
+        out.append("# TYPE securaccess_request_errors_total counter\n");
+        Map<String, Long> errors = new TreeMap<>();
+        sorted.forEach((key, timer) -> errors.merge(key.endpoint(),
+            key.outcome() == Outcome.ERROR ? timer.count.sum() : 0, Long::sum));
+        errors.forEach((endpoint, count) -> out.append("securaccess_request_errors_total{endpoint=\"")
+            .append(endpoint).append("\"} ").append(count).append('\n'));
+
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, Key key, String label, String value, double sample) {
+        out.append(name).append("{endpoint=\"").append(key.endpoint())
+            .append("\",outcome=\"").append(key.outcome().name().toLowerCase(Locale.ROOT)).append('"');
+        if (label != null) {
+            out.append(',').append(label).append("=\"").append(value).append('"');
+        }
+        out.append("} ").append(format(sample)).append('\n');
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+}
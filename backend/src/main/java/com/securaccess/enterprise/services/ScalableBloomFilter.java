@@ -0,0 +1,151 @@
+package com.securaccess.enterprise.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Scalable Bloom filter (Almeida et al.): a new stage twice as large with half the false-positive
+// rate is appended whenever the current one is full, so the compound rate stays under 2 * target.
+// Lookups are lock-free; insertions are serialized, issuance is orders of magnitude rarer than scans.
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final double targetFalsePositiveRate;
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(int initialCapacity, double targetFalsePositiveRate) {
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+        // The series p0 * (1 + r + r^2 + ...) converges to p0 / (1 - r)
+        this.stages = new Stage[] {new Stage(Math.max(initialCapacity, 64), targetFalsePositiveRate * (1 - TIGHTENING_RATIO))};
+    }
+
+    public synchronized void put(String value) {
+        long hash = hash(value);
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(hash)) {
+                return;
+            }
+        }
+
+        Stage last = current[current.length - 1];
+        if (last.count >= last.capacity) {
+            Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+            Stage[] grown = new Stage[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = next;
+            stages = grown;
+            last = next;
+        }
+        last.put(hash);
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long count() {
+        long count = 0;
+        for (Stage stage : stages) {
+            count += stage.count;
+        }
+        return count;
+    }
+
+    public int stageCount() {
+        return stages.length;
+    }
+
+    public long bitCount() {
+        long bits = 0;
+        for (Stage stage : stages) {
+            bits += stage.bits;
+        }
+        return bits;
+    }
+
+    public double getTargetFalsePositiveRate() {
+        return targetFalsePositiveRate;
+    }
+
+    // Estimated from actual fill: 1 - prod(1 - (1 - e^(-k n / m))^k) over the stages
+    public double expectedFalsePositiveRate() {
+        double allNegative = 1.0;
+        for (Stage stage : stages) {
+            double fill = 1 - Math.exp(-(double) stage.hashFunctions * stage.count / stage.bits);
+            allNegative *= 1 - Math.pow(fill, stage.hashFunctions);
+        }
+        return 1 - allNegative;
+    }
+
+    private static long hash(String value) {
+        // FNV-1a over the UTF-16 chars, then the murmur3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bits;
+        private final int hashFunctions;
+        private final AtomicLongArray words;
+        private volatile long count;
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            // Optimal sizing: m = -n ln p / (ln 2)^2, k = (m / n) ln 2
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = Math.max(64, (optimalBits + 63) & ~63L);
+            this.hashFunctions = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) (bits >>> 6));
+        }
+
+        private void put(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                } while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask));
+            }
+            count++;
+        }
+
+        private boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.RevokedQrCode;
+import com.securaccess.enterprise.repositories.RevokedQrCodeRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Self-verifying QR payloads: the code id, person type, zone and validity window travel in the QR
+// itself with a truncated HMAC-SHA256, so a gate can accept a scan with CPU work only.
+// Layout: version, key id, code id (8), kind, valid from/to (seconds since 2024-01-01, 4 each),
+// zone length + UTF-8 zone, then the 16-byte tag; base32 encoded behind TOKEN_PREFIX.
+@Service
+public class SignedQrTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignedQrTokenService.class);
+
+    public static final String TOKEN_PREFIX = "SQ";
+
+    private static final byte VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int TAG_LENGTH = 16;
+    private static final int HEADER_LENGTH = 20;
+    private static final int MAX_ZONE_BYTES = 255;
+    private static final long EPOCH_SECONDS = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+    private static final long NO_EXPIRY = 0xFFFFFFFFL;
+    private static final QrCodeIndex.Kind[] KINDS = QrCodeIndex.Kind.values();
+
+    public record Claims(String code, QrCodeIndex.Kind kind, String zone, Instant validFrom, Instant validTo, int keyId) {}
+
+    public record Verification(boolean valid, String reason, Claims claims) {
+
+        static Verification rejected(String reason, Claims claims) {
+            return new Verification(false, reason, claims);
+        }
+    }
+
+    @Autowired
+    private RevokedQrCodeRepository revokedQrCodeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.qrcode.signing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.qrcode.signing.active-key-id:1}")
+    private int activeKeyId;
+
+    // Comma separated "keyId:base64Secret" pairs; old ids stay listed until their codes expire
+    @Value("${app.qrcode.signing.keys:}")
+    private String configuredKeys;
+
+    private final SecretKeySpec[] keys = new SecretKeySpec[256];
+
+    // One initialised Mac per key and thread: a batch of scans never re-derives the HMAC pads
+    private final ThreadLocal<Mac[]> macs = ThreadLocal.withInitial(() -> new Mac[256]);
+
+    // Code id -> end of validity; entries past it are purged, the token is rejected as expired anyway.
+    // Written through to revoked_qr_codes and reloaded at startup, a restart must not revive a token
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+
+    // Revocations arrive from after-commit callbacks, where the finished transaction is still bound
+    private TransactionTemplate revocationTransaction;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        if (activeKeyId < 0 || activeKeyId > 255) {
+            throw new IllegalStateException("app.qrcode.signing.active-key-id must be between 0 and 255");
+        }
+        for (String pair : configuredKeys.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.trim().split(":", 2);
+            int keyId = Integer.parseInt(parts[0]);
+            keys[keyId] = new SecretKeySpec(Base64.getDecoder().decode(parts[1]), ALGORITHM);
+        }
+        if (keys[activeKeyId] == null) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys[activeKeyId] = new SecretKeySpec(secret, ALGORITHM);
+            logger.warn("No signing key configured for id {}, using a random key: signed QR codes will not survive a restart",
+                activeKeyId);
+        }
+
+        revocationTransaction = new TransactionTemplate(transactionManager);
+        revocationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Before the first scan can be verified
+        for (RevokedQrCode revocation : revokedQrCodeRepository.findStillValid(System.currentTimeMillis())) {
+            revoked.put(revocation.getCodeId(), revocation.getValidToMillis());
+        }
+        logger.info("Loaded {} signed QR code revocations", revoked.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isToken(String value) {
+        return enabled && value != null && value.startsWith(TOKEN_PREFIX) && value.length() > TOKEN_PREFIX.length() + 32;
+    }
+
+    public String issue(String code, QrCodeIndex.Kind kind, String zone, Instant validFrom, Instant validTo) {
+        byte[] zoneBytes = zone != null ? zone.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (zoneBytes.length > MAX_ZONE_BYTES) {
+            throw new IllegalArgumentException("Zone name is too long to be signed");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + zoneBytes.length + TAG_LENGTH);
+        buffer.put(VERSION);
+        buffer.put((byte) activeKeyId);
+        buffer.putLong(QrCodeIdGenerator.parseId(code));
+        buffer.put((byte) kind.ordinal());
+        buffer.putInt((int) (validFrom != null ? toTokenSeconds(validFrom) : 0));
+        buffer.putInt((int) (validTo != null ? toTokenSeconds(validTo) : NO_EXPIRY));
+        buffer.put((byte) zoneBytes.length);
+        buffer.put(zoneBytes);
+
+        byte[] token = buffer.array();
+        Mac mac = mac(activeKeyId);
+        mac.update(token, 0, buffer.position());
+        System.arraycopy(mac.doFinal(), 0, token, buffer.position(), TAG_LENGTH);
+        return TOKEN_PREFIX + Base32Codec.encode(token);
+    }
+
+    public Verification verify(String token, long epochMillis) {
+        byte[] bytes;
+        try {
+            bytes = Base32Codec.decode(token.substring(TOKEN_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return Verification.rejected("malformed", null);
+        }
+        if (bytes.length < HEADER_LENGTH + TAG_LENGTH || bytes[0] != VERSION) {
+            return Verification.rejected("malformed", null);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        int keyId = buffer.get() & 0xFF;
+        long codeId = buffer.getLong();
+        int kind = buffer.get() & 0xFF;
+        long validFrom = buffer.getInt() & 0xFFFFFFFFL;
+        long validTo = buffer.getInt() & 0xFFFFFFFFL;
+        int zoneLength = buffer.get() & 0xFF;
+        int signedLength = HEADER_LENGTH + zoneLength;
+        if (kind >= KINDS.length || bytes.length < signedLength + TAG_LENGTH || keys[keyId] == null) {
+            return Verification.rejected("malformed", null);
+        }
+
+        Mac mac = mac(keyId);
+        mac.update(bytes, 0, signedLength);
+        byte[] expected = mac.doFinal();
+        // Constant time, a forger must not learn how many leading tag bytes were right
+        int difference = 0;
+        for (int i = 0; i < TAG_LENGTH; i++) {
+            difference |= expected[i] ^ bytes[signedLength + i];
+        }
+        if (difference != 0) {
+            return Verification.rejected("bad_signature", null);
+        }
+
+        QrCodeIndex.Kind codeKind = KINDS[kind];
+        Claims claims = new Claims(
+            codeKind.getCodePrefix() + Base32Codec.encode(codeId),
+            codeKind,
+            new String(bytes, HEADER_LENGTH, zoneLength, StandardCharsets.UTF_8),
+            validFrom == 0 ? null : fromTokenSeconds(validFrom),
+            validTo == NO_EXPIRY ? null : fromTokenSeconds(validTo),
+            keyId);
+
+        long nowSeconds = epochMillis / 1000 - EPOCH_SECONDS;
+        if (nowSeconds < validFrom) {
+            return Verification.rejected("not_yet_valid", claims);
+        }
+        if (validTo != NO_EXPIRY && nowSeconds > validTo) {
+            return Verification.rejected("expired", claims);
+        }
+        if (revoked.containsKey(codeId)) {
+            return Verification.rejected("revoked", claims);
+        }
+        return new Verification(true, "valid", claims);
+    }
+
+    // Gates flushing a backlog of offline scans verify them in one call on one thread's Macs
+    public List<Verification> verifyAll(List<String> tokens, long epochMillis) {
+        List<Verification> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            results.add(isToken(token) ? verify(token, epochMillis) : Verification.rejected("malformed", null));
+        }
+        return results;
+    }
+
+    public void revoke(String code, long validToMillis) {
+        Long codeId = enabled ? codeId(code) : null;
+        if (codeId != null) {
+            revoked.put(codeId, validToMillis);
+            persist(code, () -> revokedQrCodeRepository.save(new RevokedQrCode(codeId, validToMillis)));
+        }
+    }
+
+    public void reinstate(String code) {
+        Long codeId = enabled ? codeId(code) : null;
+        // Every save of an active code lands here, only an actual reinstatement touches the table
+        if (codeId != null && revoked.remove(codeId) != null) {
+            persist(code, () -> revokedQrCodeRepository.deleteById(codeId));
+        }
+    }
+
+    public int revokedCount() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.qrcode.signing.revocation-purge-ms:3600000}")
+    public void purgeRevocations() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(validTo -> validTo < now);
+        persist("expired revocations", () -> revokedQrCodeRepository.deleteExpired(now));
+    }
+
+    public static Map<String, Object> describe(Verification verification) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("valid", verification.valid());
+        details.put("reason", verification.reason());
+        Claims claims = verification.claims();
+        if (claims != null) {
+            details.put("code", claims.code());
+            details.put("kind", claims.kind());
+            details.put("zone", claims.zone());
+            details.put("validFrom", claims.validFrom());
+            details.put("validTo", claims.validTo());
+            details.put("keyId", claims.keyId());
+        }
+        return details;
+    }
+
+    private void persist(String subject, Runnable write) {
+        try {
+            revocationTransaction.executeWithoutResult(status -> write.run());
+        } catch (Exception e) {
+            // Still enforced in memory; only a restart before the next change would lose it
+            logger.error("Could not persist revocation change for {}: {}", subject, e.getMessage());
+        }
+    }
+
+    private Mac mac(int keyId) {
+        Mac[] perKey = macs.get();
+        Mac mac = perKey[keyId];
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(keys[keyId]);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialise " + ALGORITHM, e);
+            }
+            perKey[keyId] = mac;
+        }
+        return mac;
+    }
+
+    private static Long codeId(String code) {
+        // Codes that predate the time-ordered generator are never signed
+        try {
+            return code != null ? QrCodeIdGenerator.parseId(code) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toTokenSeconds(Instant instant) {
+        return Math.max(1, Math.min(NO_EXPIRY - 1, instant.getEpochSecond() - EPOCH_SECONDS));
+    }
+
+    private static Instant fromTokenSeconds(long seconds) {
+        return Instant.ofEpochSecond(seconds + EPOCH_SECONDS);
+    }
+}
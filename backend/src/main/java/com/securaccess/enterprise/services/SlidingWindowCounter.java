@@ -0,0 +1,44 @@
+package com.securaccess.enterprise.services;
+
+// Count of events over the last `window` milliseconds, kept in a fixed ring of sub-buckets: memory
+// does not grow with the rate, and the window slides one bucket (window / buckets) at a time.
+// Not thread-safe, callers hold a lock.
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int[] counts;
+    private final long[] slots;
+
+    public SlidingWindowCounter(long windowMillis, int buckets) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.counts = new int[buckets];
+        this.slots = new long[buckets];
+    }
+
+    // Returns the count over the window ending at the given time, this event included
+    public long add(long epochMillis) {
+        long slot = epochMillis / bucketMillis;
+        int index = (int) Math.floorMod(slot, (long) counts.length);
+        // A late event whose bucket has already been reused for a newer one is left out
+        if (slots[index] > slot) {
+            return sum(epochMillis);
+        }
+        if (slots[index] != slot) {
+            slots[index] = slot;
+            counts[index] = 0;
+        }
+        counts[index]++;
+        return sum(epochMillis);
+    }
+
+    public long sum(long epochMillis) {
+        long slot = epochMillis / bucketMillis;
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (slots[i] <= slot && slots[i] > slot - counts.length) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,205 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.VisitorSketch;
+import com.securaccess.enterprise.repositories.VisitorSketchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Distinct visitors per zone and site day as HyperLogLog sketches. The rollup service feeds it the
+// same committed rows and rebuilt days it rolls up; sketches touched since the last flush live in
+// memory and are written back on the rollup schedule. Queries union day sketches, so their cost
+// depends on the number of days and zones, not on the traffic.
+@Service
+public class VisitorSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitorSketchService.class);
+
+    // The actions that bring someone into a zone, as in OccupancyTracker
+    private static final Set<String> ENTRIES = Set.of("check-in", "entry", "override");
+
+    private record Key(LocalDate day, String zone) {}
+
+    @Autowired
+    private VisitorSketchRepository visitorSketchRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Key, HyperLogLog> open = new ConcurrentHashMap<>();
+    private final Set<Key> dirty = ConcurrentHashMap.newKeySet();
+
+    public static boolean isVisit(String action, Boolean success) {
+        return Boolean.TRUE.equals(success) && action != null && ENTRIES.contains(action);
+    }
+
+    // The person when known, otherwise the QR code they entered with
+    public static String visitorOf(String personId, String qrCode) {
+        return personId != null ? personId : qrCode;
+    }
+
+    public void add(LocalDate day, String zone, String visitor) {
+        if (visitor == null) {
+            return;
+        }
+        Key key = new Key(day, zone);
+        boolean[] added = new boolean[1];
+        while (!added[0]) {
+            if (!open.containsKey(key)) {
+                // Loaded outside the map so the query never runs under a bin lock
+                open.putIfAbsent(key, load(key));
+            }
+            // Added and marked dirty under the key's bin lock, the lock flush evicts under: a sketch
+            // is never evicted between the two, and one evicted before is simply loaded again
+            open.computeIfPresent(key, (k, sketch) -> {
+                sketch.add(visitor);
+                dirty.add(k);
+                added[0] = true;
+                return sketch;
+            });
+        }
+    }
+
+    // Called by the rollup rebuild inside its transaction; the day's rows are replaced wholesale
+    public synchronized void replaceDay(LocalDate day, Map<String, HyperLogLog> sketches) {
+        visitorSketchRepository.deleteByDay(day);
+        List<VisitorSketch> rows = new ArrayList<>(sketches.size());
+        sketches.forEach((zone, sketch) -> rows.add(new VisitorSketch(day, zone, sketch.toBytes())));
+        visitorSketchRepository.saveAll(rows);
+        open.keySet().removeIf(key -> key.day().equals(day));
+        dirty.removeIf(key -> key.day().equals(day));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // The rollup service depends on this one and has already handed over its last rows
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.rollup-flush-ms:5000}")
+    public synchronized void flush() {
+        if (!dirty.isEmpty()) {
+            List<Key> keys = new ArrayList<>(dirty);
+            // Taken off before serializing: a visitor added meanwhile marks the key dirty again
+            keys.forEach(dirty::remove);
+            try {
+                transactionTemplate.executeWithoutResult(status -> keys.forEach(key -> {
+                    HyperLogLog sketch = open.get(key);
+                    if (sketch == null) {
+                        // Its day was rebuilt meanwhile, the row written by the rebuild stands
+                        return;
+                    }
+                    byte[] registers = sketch.toBytes();
+                    VisitorSketch row = visitorSketchRepository.findByDayAndZone(key.day(), key.zone())
+                        .orElseGet(() -> new VisitorSketch(key.day(), key.zone(), null));
+                    row.setRegisters(registers);
+                    visitorSketchRepository.save(row);
+                }));
+            } catch (Exception e) {
+                dirty.addAll(keys);
+                logger.warn("Visitor sketch flush of {} sketches failed: {}", keys.size(), e.getMessage());
+            }
+        }
+        // Live scans only reach the newest day (and the one before, around midnight); older
+        // sketches are read back from the table
+        open.keySet().stream().map(Key::day).max(LocalDate::compareTo).ifPresent(newest -> {
+            LocalDate oldest = newest.minusDays(1);
+            for (Key key : open.keySet()) {
+                if (key.day().isBefore(oldest)) {
+                    open.computeIfPresent(key, (k, sketch) -> dirty.contains(k) ? sketch : null);
+                }
+            }
+        });
+    }
+
+    // Site days [from, to); zone null for all zones
+    public long distinctVisitors(LocalDate from, LocalDate to, String zone) {
+        HyperLogLog union = new HyperLogLog();
+        sketches(from, to).forEach((key, sketch) -> {
+            if (zone == null || zone.equals(key.zone())) {
+                union.merge(sketch);
+            }
+        });
+        return union.estimate();
+    }
+
+    // Every day of [from, to) present, days without visitors at 0
+    public Map<LocalDate, Long> dailyVisitors(LocalDate from, LocalDate to, String zone) {
+        Map<LocalDate, HyperLogLog> days = new LinkedHashMap<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            days.put(day, new HyperLogLog());
+        }
+        sketches(from, to).forEach((key, sketch) -> {
+            if (zone == null || zone.equals(key.zone())) {
+                days.get(key.day()).merge(sketch);
+            }
+        });
+        return estimates(days);
+    }
+
+    // Keyed by the Monday of each week overlapping [from, to), counted within [from, to) only
+    public Map<LocalDate, Long> weeklyVisitors(LocalDate from, LocalDate to, String zone) {
+        Map<LocalDate, HyperLogLog> weeks = new LinkedHashMap<>();
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            weeks.computeIfAbsent(day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), w -> new HyperLogLog());
+        }
+        sketches(from, to).forEach((key, sketch) -> {
+            if (zone == null || zone.equals(key.zone())) {
+                weeks.get(key.day().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))).merge(sketch);
+            }
+        });
+        return estimates(weeks);
+    }
+
+    public Map<String, Long> visitorsByZone(LocalDate from, LocalDate to) {
+        Map<String, HyperLogLog> zones = new HashMap<>();
+        sketches(from, to).forEach((key, sketch) -> zones.computeIfAbsent(key.zone(), z -> new HyperLogLog()).merge(sketch));
+        return estimates(zones);
+    }
+
+    // Standard error of every estimate above
+    public double relativeError() {
+        return HyperLogLog.relativeError(HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    private Map<Key, HyperLogLog> sketches(LocalDate from, LocalDate to) {
+        Map<Key, HyperLogLog> sketches = new HashMap<>();
+        for (VisitorSketch row : visitorSketchRepository.findByDayRange(from, to)) {
+            sketches.put(new Key(row.getDay(), row.getZone()), HyperLogLog.fromBytes(row.getRegisters()));
+        }
+        // Open sketches were loaded from their row and only grew since, they supersede it
+        open.forEach((key, sketch) -> {
+            if (!key.day().isBefore(from) && key.day().isBefore(to)) {
+                sketches.put(key, sketch);
+            }
+        });
+        return sketches;
+    }
+
+    private HyperLogLog load(Key key) {
+        return visitorSketchRepository.findByDayAndZone(key.day(), key.zone())
+            .map(row -> HyperLogLog.fromBytes(row.getRegisters()))
+            .orElseGet(HyperLogLog::new);
+    }
+
+    private static <K> Map<K, Long> estimates(Map<K, HyperLogLog> sketches) {
+        Map<K, Long> result = new LinkedHashMap<>();
+        sketches.forEach((key, sketch) -> result.put(key, sketch.estimate()));
+        return result;
+    }
+}
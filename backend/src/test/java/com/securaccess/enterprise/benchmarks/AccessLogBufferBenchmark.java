@@ -0,0 +1,85 @@
+package com.securaccess.enterprise.benchmarks;
+
+import com.securaccess.enterprise.services.ConcurrentRingBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares the former StaffController.ACCESS_LOGS handling (add(0, ...) then subList(...).clear()
+// on an ArrayList, made thread-safe with a lock since the original was not) with ConcurrentRingBuffer,
+// for scanners appending and dashboards taking snapshots at the same time.
+// Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+//   -Dexec.mainClass=com.securaccess.enterprise.benchmarks.AccessLogBufferBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class AccessLogBufferBenchmark {
+
+    private static final int RETENTION = 1000;
+
+    private List<Long> legacyLogs;
+    private ConcurrentRingBuffer<Long> ringBuffer;
+    private long counter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        legacyLogs = new ArrayList<>();
+        ringBuffer = new ConcurrentRingBuffer<>(RETENTION);
+        for (long i = 0; i < RETENTION; i++) {
+            legacyLogs.add(0, i);
+            ringBuffer.add(i);
+        }
+    }
+
+    @Benchmark
+    @Group("legacyArrayList")
+    @GroupThreads(4)
+    public void legacyAppend() {
+        synchronized (legacyLogs) {
+            legacyLogs.add(0, counter++);
+            if (legacyLogs.size() > RETENTION) {
+                legacyLogs.subList(RETENTION, legacyLogs.size()).clear();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("legacyArrayList")
+    @GroupThreads(1)
+    public void legacySnapshot(Blackhole blackhole) {
+        synchronized (legacyLogs) {
+            blackhole.consume(new ArrayList<>(legacyLogs));
+        }
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(4)
+    public void ringAppend() {
+        ringBuffer.add(42L);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public void ringSnapshot(Blackhole blackhole) {
+        blackhole.consume(ringBuffer.snapshot());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AccessLogBufferBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
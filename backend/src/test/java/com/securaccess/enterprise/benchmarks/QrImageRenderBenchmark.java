@@ -0,0 +1,97 @@
+package com.securaccess.enterprise.benchmarks;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.securaccess.enterprise.services.QrImageRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Compares the previous AWT/ImageIO rendering paths against QrImageRenderer on the same matrix.
+// Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+//   -Dexec.mainClass=com.securaccess.enterprise.benchmarks.QrImageRenderBenchmark
+// The gc profiler reports gc.alloc.rate.norm, i.e. bytes allocated per render.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class QrImageRenderBenchmark {
+
+    private static final int SIZE = 300;
+
+    private final QrImageRenderer renderer = new QrImageRenderer();
+    private BitMatrix matrix;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H);
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
+        hints.put(EncodeHintType.MARGIN, 1);
+        matrix = new QRCodeWriter().encode("http://ec2-13-49-68-126.eu-north-1.compute.amazonaws.com/qr/HOST1234",
+                BarcodeFormat.QR_CODE, SIZE, SIZE, hints);
+    }
+
+    @Benchmark
+    public void legacyGraphicsFillRect(Blackhole blackhole) throws IOException {
+        // Former QrCodeService.genererImageQrCode
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, SIZE, SIZE);
+        graphics.setColor(Color.BLACK);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                if (matrix.get(x, y)) {
+                    graphics.fillRect(x, y, 1, 1);
+                }
+            }
+        }
+        graphics.dispose();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", outputStream);
+        blackhole.consume(outputStream.toByteArray());
+    }
+
+    @Benchmark
+    public void legacyMatrixToImageWriter(Blackhole blackhole) throws IOException {
+        // Former QRCodeController.generateQRCodeImage
+        BufferedImage image = MatrixToImageWriter.toBufferedImage(matrix);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", outputStream);
+        blackhole.consume(outputStream.toByteArray());
+    }
+
+    @Benchmark
+    public void palettePngRenderer(Blackhole blackhole) {
+        blackhole.consume(renderer.toPng(matrix));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QrImageRenderBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.securaccess.enterprise.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QRCodeControllerTest {
+
+    private static final String PERSON = "{\"personType\":\"worker\",\"name\":\"Awa Diop\",\"phone\":\"+221 77 000 00 00\",\"location\":\"Gate 1\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void batchStreamsOneNdjsonLinePerEntry() throws Exception {
+        String body = "[" + PERSON + ",{\"personType\":\"worker\"}," + PERSON + "]";
+        MvcResult started = mockMvc.perform(post("/qrcode/generate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content(body))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andReturn();
+
+        List<Map<String, Object>> lines = readLines(result.getResponse().getContentAsString());
+        assertEquals(3, lines.size());
+        lines.sort(Comparator.comparingInt(line -> (Integer) line.get("index")));
+        assertEquals(true, lines.get(0).get("success"));
+        assertEquals(false, lines.get(1).get("success"), "a bad entry fails on its own line");
+        assertEquals(true, lines.get(2).get("success"));
+
+        // The stored code keeps a link to its image, not the inline PNG sent with the batch
+        @SuppressWarnings("unchecked")
+        Map<String, Object> issued = (Map<String, Object>) lines.get(0).get("qrCode");
+        assertTrue(((String) issued.get("qrCodeUrl")).startsWith("data:image/png;base64,"));
+        String stored = mockMvc.perform(get("/qrcode/" + issued.get("qrCodeId")))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertFalse(stored.contains("data:image/png"));
+    }
+
+    @Test
+    void batchThatIsNotAnArrayOfObjectsIsRejected() throws Exception {
+        MvcResult result = mockMvc.perform(post("/qrcode/generate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content("[]"))
+            .andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+
+        assertEquals(400, result.getResponse().getStatus());
+        List<Map<String, Object>> lines = readLines(result.getResponse().getContentAsString());
+        assertEquals(1, lines.size());
+        assertEquals(false, lines.get(0).get("success"));
+    }
+
+    @Test
+    void listingDecoratesCopiesAndUpdatesReplaceTheEntry() throws Exception {
+        mockMvc.perform(get("/qrcode/list").param("size", "50"))
+            .andExpect(status().isOk());
+        String stored = mockMvc.perform(get("/qrcode/QR002"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertFalse(stored.contains("formattedCreatedAt"), "list formatting must not leak into the stored entry");
+
+        mockMvc.perform(put("/qrcode/QR002/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"suspended\",\"updatedBy\":\"test\"}"))
+            .andExpect(status().isOk());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> updated = (Map<String, Object>) objectMapper.readValue(mockMvc.perform(get("/qrcode/QR002"))
+            .andReturn().getResponse().getContentAsString(), Map.class).get("data");
+        assertEquals("suspended", updated.get("status"));
+        assertEquals("test", updated.get("statusUpdatedBy"));
+
+        mockMvc.perform(put("/qrcode/QR002/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"active\"}"))
+            .andExpect(status().isOk());
+    }
+
+    private List<Map<String, Object>> readLines(String ndjson) throws Exception {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            if (!line.isBlank()) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> parsed = objectMapper.readValue(line, Map.class);
+                lines.add(parsed);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,100 @@
+package com.securaccess.enterprise.controllers;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StaffControllerTest {
+
+    private static final String HEADER = "id,timestamp,action,success,zone,location,qr_code,person_id,person_name,staff_id,details";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Test
+    void exportStreamsCsvRowsForTheRange() throws Exception {
+        // A day no other test writes to
+        LocalDateTime day = LocalDateTime.of(2001, 3, 14, 0, 0);
+        accessLogRepository.save(log(day.plusHours(8), "entry", "Lobby", "QR-EXPORT-1", "Awa Diop"));
+        accessLogRepository.save(log(day.plusHours(9), "exit", "Lobby", "QR-EXPORT-2", "Diop, Awa"));
+        accessLogRepository.save(log(day.plusDays(1).plusHours(8), "entry", "Lobby", "QR-EXPORT-3", "Out of range"));
+
+        MvcResult started = mockMvc.perform(get("/staff/access/export")
+                .param("from", day.toString())
+                .param("to", day.plusDays(1).toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(header().doesNotExist("Content-Encoding"))
+            .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals(HEADER, lines[0]);
+        assertTrue(lines[1].contains(",2001-03-14T08:00:00,entry,true,Lobby,Gate 1,QR-EXPORT-1,"));
+        assertTrue(lines[1].contains(",Awa Diop,"));
+        assertTrue(lines[2].contains(",\"Diop, Awa\","), "fields with commas are quoted");
+        assertFalse(result.getResponse().getContentAsString().contains("QR-EXPORT-3"));
+    }
+
+    @Test
+    void exportRejectsBadDatesBeforeStreaming() throws Exception {
+        MvcResult unparsable = export("yesterday", "2001-03-15T00:00:00");
+        assertEquals(400, unparsable.getResponse().getStatus());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(unparsable.getResponse().getContentType())));
+        assertTrue(unparsable.getResponse().getContentAsString().contains("\"success\":false"));
+
+        MvcResult reversed = export("2001-03-15T00:00:00", "2001-03-14T00:00:00");
+        assertEquals(400, reversed.getResponse().getStatus());
+        assertFalse(reversed.getResponse().getContentAsString().startsWith("id,"));
+    }
+
+    private MvcResult export(String from, String to) throws Exception {
+        MvcResult result = mockMvc.perform(get("/staff/access/export").param("from", from).param("to", to)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result;
+    }
+
+    private static AccessLog log(LocalDateTime timestamp, String action, String zone, String qrCode, String personName) {
+        AccessLog log = new AccessLog();
+        log.setTimestamp(timestamp);
+        log.setAccessType(action);
+        log.setZone(zone);
+        log.setLocation("Gate 1");
+        log.setSuccess(true);
+        log.setQrCode(qrCode);
+        log.setPersonId("P-1");
+        log.setPersonName(personName);
+        return log;
+    }
+}
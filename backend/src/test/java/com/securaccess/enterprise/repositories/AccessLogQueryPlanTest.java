@@ -0,0 +1,116 @@
+package com.securaccess.enterprise.repositories;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the range queries against H2 in MySQL mode and checks EXPLAIN picks the composite indexes
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:queryplan;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class AccessLogQueryPlanTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int i = 0; i < 2_000; i++) {
+            jdbcTemplate.update(
+                "INSERT INTO access_logs (id, worker_id, host_id, access_type, location, zone, timestamp, success)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, TRUE)",
+                i + 1, i % 2 == 0 ? (long) (i % 50) : null, i % 2 == 1 ? (long) (i % 40) : null,
+                i % 3 == 0 ? "exit" : "entry", "Gate " + (i % 10), "Zone " + (i % 5), BASE.plusMinutes(i));
+        }
+    }
+
+    @Test
+    void workerHistoryUsesWorkerTimeIndex() {
+        assertUsesIndex("idx_access_logs_worker_time",
+            "SELECT * FROM access_logs WHERE worker_id = 4 AND timestamp BETWEEN ? AND ? ORDER BY timestamp");
+    }
+
+    @Test
+    void hostHistoryUsesHostTimeIndex() {
+        assertUsesIndex("idx_access_logs_host_time",
+            "SELECT * FROM access_logs WHERE host_id = 3 AND timestamp BETWEEN ? AND ? ORDER BY timestamp");
+    }
+
+    @Test
+    void locationReportUsesLocationTimeIndex() {
+        assertUsesIndex("idx_access_logs_location_time",
+            "SELECT * FROM access_logs WHERE location = 'Gate 2' AND timestamp BETWEEN ? AND ? ORDER BY timestamp");
+    }
+
+    @Test
+    void zoneReportUsesZoneTimeIndex() {
+        assertUsesIndex("idx_access_logs_zone_time",
+            "SELECT * FROM access_logs WHERE zone = 'Zone 1' AND timestamp BETWEEN ? AND ? ORDER BY timestamp");
+    }
+
+    @Test
+    void rangeQueriesReturnOnlyTheWindowInOrder() {
+        LocalDateTime from = BASE.plusMinutes(100);
+        LocalDateTime to = BASE.plusMinutes(199);
+
+        List<AccessLog> worker = accessLogRepository.findByWorkerIdAndAccessTimeBetween(4L, from, to);
+        assertEquals(2, worker.size());
+        assertTrue(worker.get(0).getTimestamp().isBefore(worker.get(1).getTimestamp()));
+
+        assertEquals(2L, accessLogRepository.countAccessesByWorkerAndDateRange(4L, from, to));
+        assertEquals(10, accessLogRepository.findByLocationAndAccessTimeBetween("Gate 2", from, to).size());
+        assertEquals(20, accessLogRepository.findByZoneAndAccessTimeBetween("Zone 1", from, to).size());
+        assertEquals(100, accessLogRepository.findByAccessTimeBetween(from, to).size());
+    }
+
+    @Test
+    void keysetPagesCoverTheFilteredHistoryOnce() {
+        LocalDateTime beforeTime = LocalDateTime.of(9999, 12, 31, 23, 59);
+        long beforeId = Long.MAX_VALUE;
+        Set<Long> seen = new HashSet<>();
+        List<AccessLog> page;
+        do {
+            page = accessLogRepository.findPageBefore(beforeTime, beforeId, BASE, null, "exit", Limit.of(97));
+            for (AccessLog log : page) {
+                assertTrue(seen.add(log.getId()), "Row returned twice: " + log.getId());
+                assertTrue(log.getTimestamp().isBefore(beforeTime)
+                    || (log.getTimestamp().equals(beforeTime) && log.getId() < beforeId));
+                beforeTime = log.getTimestamp();
+                beforeId = log.getId();
+            }
+        } while (!page.isEmpty());
+        assertEquals(667, seen.size());
+    }
+
+    private void assertUsesIndex(String index, String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+            BASE.plusHours(1), BASE.plusHours(5));
+        assertTrue(plan.toLowerCase().contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+}
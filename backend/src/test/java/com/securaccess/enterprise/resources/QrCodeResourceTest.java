@@ -0,0 +1,143 @@
+package com.securaccess.enterprise.resources;
+
+import com.securaccess.enterprise.entities.Evenement;
+import com.securaccess.enterprise.entities.QrCode;
+import com.securaccess.enterprise.entities.Utilisateur;
+import com.securaccess.enterprise.repositories.EvenementRepository;
+import com.securaccess.enterprise.repositories.QrCodeImageRepository;
+import com.securaccess.enterprise.repositories.QrCodeRepository;
+import com.securaccess.enterprise.repositories.UtilisateurRepository;
+import com.securaccess.enterprise.services.AccessCounters;
+import com.securaccess.enterprise.services.AccessEvent;
+import com.securaccess.enterprise.services.AccessLogIngestionService;
+import com.securaccess.enterprise.services.QrImageRenderer;
+import com.securaccess.enterprise.services.QrImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QrCodeResourceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+
+    @Autowired
+    private EvenementRepository evenementRepository;
+
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+
+    @Autowired
+    private QrCodeImageRepository qrCodeImageRepository;
+
+    @Autowired
+    private QrImageStore qrImageStore;
+
+    @Autowired
+    private QrImageRenderer qrImageRenderer;
+
+    @Autowired
+    private AccessLogIngestionService accessLogIngestionService;
+
+    @Autowired
+    private AccessCounters accessCounters;
+
+    @Test
+    void eventExportStreamsTheIssuedImages() throws Exception {
+        Utilisateur organisateur = utilisateurRepository.save(new Utilisateur(
+            "export-" + System.nanoTime() + "@example.com", "Diop", "Awa", "secret", Utilisateur.TypeUtilisateur.ADMIN));
+        Evenement evenement = evenementRepository.save(new Evenement("Salon", "Export test",
+            LocalDateTime.now(), LocalDateTime.now().plusDays(1), organisateur));
+
+        // Stands in for a signed token: the issued image encodes more than the bare code
+        QrCode signed = badge("EVT-EXPORT-1", organisateur, evenement);
+        signed.setImageHash(qrImageStore.store("token-for-EVT-EXPORT-1"));
+        qrCodeRepository.save(signed);
+        // Issued before images were stored
+        qrCodeRepository.save(badge("EVT-EXPORT-2", organisateur, evenement));
+
+        MvcResult started = mockMvc.perform(get("/qrcodes/evenement/" + evenement.getId() + "/images"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/zip"))
+            .andReturn();
+
+        Map<String, byte[]> entries = unzip(result.getResponse().getContentAsByteArray());
+        assertEquals(2, entries.size());
+        byte[] issued = qrCodeImageRepository.findPngByHash(signed.getImageHash()).orElseThrow();
+        assertArrayEquals(issued, entries.get("EVT-EXPORT-1.png"));
+        assertFalse(Arrays.equals(render("EVT-EXPORT-1"), entries.get("EVT-EXPORT-1.png")));
+        assertArrayEquals(render("EVT-EXPORT-2"), entries.get("EVT-EXPORT-2.png"));
+    }
+
+    @Test
+    void unknownEventIsNotFound() throws Exception {
+        mockMvc.perform(get("/qrcodes/evenement/987654321/images"))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rejectedValidationIsAnnouncedButNotLogged() throws Exception {
+        long denied = (Long) accessLogIngestionService.getStats().get("denied");
+        long queued = (Long) accessLogIngestionService.getStats().get("queued");
+
+        mockMvc.perform(post("/qrcodes/valider/NOT-A-CODE").param("zone", "Gate A"))
+            .andExpect(status().isBadRequest());
+
+        assertEquals(denied + 1, accessLogIngestionService.getStats().get("denied"));
+        assertEquals(queued, accessLogIngestionService.getStats().get("queued"), "no journal write, no row");
+        assertEquals(0, accessCounters.countToday(AccessEvent.DENIED));
+    }
+
+    private static QrCode badge(String code, Utilisateur utilisateur, Evenement evenement) {
+        QrCode qrCode = new QrCode(code, utilisateur, evenement, LocalDateTime.now().plusDays(1));
+        qrCode.setActif(true);
+        return qrCode;
+    }
+
+    private byte[] render(String content) throws Exception {
+        return qrImageRenderer.renderPng(content, QrImageStore.IMAGE_SIZE, QrImageStore.IMAGE_SIZE, QrImageStore.ERROR_CORRECTION);
+    }
+
+    private static Map<String, byte[]> unzip(byte[] archive) throws Exception {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+}
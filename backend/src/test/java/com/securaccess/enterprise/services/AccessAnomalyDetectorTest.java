@@ -0,0 +1,57 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessAnomalyDetectorTest {
+
+    private static final int THRESHOLD = 10;
+
+    private final List<Object> published = new ArrayList<>();
+    private AccessAnomalyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new AccessAnomalyDetector();
+        ReflectionTestUtils.setField(detector, "eventPublisher", (ApplicationEventPublisher) published::add);
+        ReflectionTestUtils.setField(detector, "maxKeys", 64);
+        ReflectionTestUtils.setField(detector, "feedCapacity", 16);
+        ReflectionTestUtils.setField(detector, "failedWindowSeconds", 60);
+        ReflectionTestUtils.setField(detector, "failedThreshold", THRESHOLD);
+        ReflectionTestUtils.setField(detector, "hoppingWindowSeconds", 30);
+        ReflectionTestUtils.setField(detector, "overrideWindowSeconds", 600);
+        ReflectionTestUtils.setField(detector, "overrideThreshold", 5);
+        detector.init();
+    }
+
+    @Test
+    void failedScanBurstRaisesOneAlertAtTheThreshold() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < THRESHOLD - 1; i++) {
+            detector.onAccess(AccessEvent.denied("BAD" + i, "Gate A", "unknown_code", now.minusSeconds(THRESHOLD - i)));
+        }
+        assertTrue(detector.recentAlerts(10, 0).isEmpty(), "below the threshold nothing is raised");
+
+        detector.onAccess(AccessEvent.denied("BAD9", "Gate A", "unknown_code", now));
+        List<AccessAlert> alerts = detector.recentAlerts(10, 0);
+        assertEquals(1, alerts.size());
+        assertEquals(AccessAlert.Type.FAILED_SCAN_BURST, alerts.get(0).type());
+        assertEquals("Gate A", alerts.get(0).key());
+        assertEquals(THRESHOLD, alerts.get(0).count());
+        assertEquals(alerts, published);
+
+        // Further failures within the same window do not repeat the alert, other gates are counted apart
+        detector.onAccess(AccessEvent.denied("BAD10", "Gate A", "unknown_code", now));
+        detector.onAccess(AccessEvent.denied("BAD11", "Gate B", "unknown_code", now));
+        assertEquals(1, detector.recentAlerts(10, 0).size());
+    }
+}
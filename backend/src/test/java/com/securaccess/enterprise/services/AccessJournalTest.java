@@ -0,0 +1,145 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessJournalTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsReplayAsAppended() throws Exception {
+        AccessJournal journal = open(1 << 20, 4);
+        AccessEvent event = new AccessEvent("QR-1", "P-1", "Awa Diop", "check-in", "Gate 1", "Lobby", "S-1", true,
+            "ignored", NOW);
+        assertEquals(1, journal.append(event));
+        assertEquals(2, journal.append(AccessEvent.denied("GARBAGE", null, "unknown_code", NOW)));
+        journal.awaitDurable(2);
+
+        List<AccessJournal.JournalRecord> records = replay(journal, 1, Long.MAX_VALUE);
+        assertEquals(2, records.size());
+        AccessEvent replayed = records.get(0).toEvent();
+        assertEquals(1, replayed.journalSequence());
+        assertEquals("QR-1", replayed.qrCode());
+        assertEquals("P-1", replayed.personId());
+        assertEquals("check-in", replayed.action());
+        assertEquals("Lobby", replayed.zone());
+        assertEquals("S-1", replayed.staffId());
+        assertTrue(replayed.success());
+        assertEquals(NOW, replayed.timestamp());
+        assertNull(records.get(1).zone());
+        assertEquals(false, records.get(1).success());
+
+        assertEquals(List.of(2L), replay(journal, 2, 2).stream().map(AccessJournal.JournalRecord::sequence).toList());
+        journal.close();
+    }
+
+    @Test
+    void reopeningResumesAfterTheLastRecordAndReplaysTheSameRecords() throws Exception {
+        AccessJournal journal = open(1 << 20, 4);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(scan("QR-" + i));
+        }
+        // No close: the process dies with everything still only in the mapping
+        List<AccessJournal.JournalRecord> before = replay(journal, 1, Long.MAX_VALUE);
+
+        AccessJournal reopened = open(1 << 20, 4);
+        assertEquals(3, reopened.getRecoveredSequence());
+        assertEquals(before, replay(reopened, 1, reopened.getRecoveredSequence()));
+        // Replay reads, it does not consume
+        assertEquals(before, replay(reopened, 1, reopened.getRecoveredSequence()));
+        assertEquals(4, reopened.append(scan("QR-4")));
+        reopened.close();
+        journal.close();
+    }
+
+    @Test
+    void aTornRecordEndsTheJournalAndIsOverwritten() throws Exception {
+        AccessJournal journal = open(1 << 20, 4);
+        for (int i = 1; i <= 5; i++) {
+            journal.append(scan("QR-" + i));
+        }
+        journal.close();
+        // Half-written record 4: its checksum no longer matches
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(3L * AccessJournal.RECORD_SIZE + 100);
+            file.write(0x5A);
+        }
+
+        AccessJournal reopened = open(1 << 20, 4);
+        assertEquals(3, reopened.getRecoveredSequence());
+        assertEquals(List.of("QR-1", "QR-2", "QR-3"),
+            replay(reopened, 1, Long.MAX_VALUE).stream().map(AccessJournal.JournalRecord::qrCode).toList());
+
+        assertEquals(4, reopened.append(scan("QR-4b")));
+        assertEquals(List.of("QR-1", "QR-2", "QR-3", "QR-4b"),
+            replay(reopened, 1, Long.MAX_VALUE).stream().map(AccessJournal.JournalRecord::qrCode).toList());
+        reopened.close();
+    }
+
+    @Test
+    void segmentsRollOverAndOldOnesAreDropped() throws Exception {
+        // Four records per segment, two segments kept
+        AccessJournal journal = open(4 * AccessJournal.RECORD_SIZE, 2);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(i, journal.append(scan("QR-" + i)));
+        }
+        journal.awaitDurable(10);
+        assertEquals(2, segments().size());
+
+        // Records 1-4 went with the first segment, replay carries on with what is left
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L),
+            replay(journal, 1, Long.MAX_VALUE).stream().map(AccessJournal.JournalRecord::sequence).toList());
+        journal.close();
+
+        AccessJournal reopened = open(4 * AccessJournal.RECORD_SIZE, 2);
+        assertEquals(10, reopened.getRecoveredSequence());
+        assertEquals(11, reopened.append(scan("QR-11")));
+        assertEquals(List.of(9L, 10L, 11L),
+            replay(reopened, 9, Long.MAX_VALUE).stream().map(AccessJournal.JournalRecord::sequence).toList());
+        reopened.close();
+    }
+
+    private AccessJournal open(int segmentBytes, int retainedSegments) throws Exception {
+        AccessJournal journal = new AccessJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(journal, "retainedSegments", retainedSegments);
+        journal.open();
+        return journal;
+    }
+
+    private static AccessEvent scan(String qrCode) {
+        return new AccessEvent(qrCode, "P-" + qrCode, null, "check-in", null, "Lobby", null, true, null, NOW);
+    }
+
+    private static List<AccessJournal.JournalRecord> replay(AccessJournal journal, long from, long to) {
+        List<AccessJournal.JournalRecord> records = new ArrayList<>();
+        journal.replay(from, to, records::add);
+        return records;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
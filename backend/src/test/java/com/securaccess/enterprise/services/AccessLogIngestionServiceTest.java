@@ -0,0 +1,103 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.AccessLog;
+import com.securaccess.enterprise.repositories.AccessLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessLogIngestionServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayWritesMissingRecordsDirectlyAndOnlyOnce() throws Exception {
+        AccessJournal before = journal();
+        for (int i = 1; i <= 6; i++) {
+            before.append(new AccessEvent("QR-" + i, "P-" + i, null, "check-in", null, "Lobby", null, true, null,
+                LocalDateTime.now()));
+        }
+        before.close();
+
+        // Restart: 1, 2 and 4 reached access_logs; 3 was dropped under backpressure, 5 and 6 were queued at the crash
+        AccessJournal journal = journal();
+        AccessLogRepository repository = mock(AccessLogRepository.class);
+        when(repository.findMaxJournalSequence()).thenReturn(4L);
+        when(repository.findJournalSequencesFrom(anyLong())).thenReturn(List.of(1L, 2L, 4L));
+        List<Object> published = new ArrayList<>();
+        AccessLogIngestionService service = service(journal, repository, published);
+        // Never started, so the gate queue refuses everything: replay must not go through it
+        assertEquals(3, service.replayJournal());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AccessLog>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(rows.capture());
+        assertEquals(List.of(3L, 5L, 6L), rows.getValue().stream().map(AccessLog::getJournalSequence).toList());
+        assertEquals(3, published.size());
+        assertEquals(3L, service.getStats().get("replayed"));
+
+        // A scan after the restart is past the recovered sequence and never a replay candidate
+        journal.append(new AccessEvent("QR-7", "P-7", null, "check-in", null, "Lobby", null, true, null, LocalDateTime.now()));
+        when(repository.findMaxJournalSequence()).thenReturn(6L);
+        when(repository.findJournalSequencesFrom(anyLong())).thenReturn(List.of(1L, 2L, 3L, 4L, 5L, 6L));
+        assertEquals(0, service.replayJournal());
+        verify(repository, times(1)).saveAll(anyList());
+        journal.close();
+    }
+
+    @Test
+    void nothingIsWrittenWhenEveryRecordIsStored() throws Exception {
+        AccessJournal before = journal();
+        before.append(new AccessEvent("QR-1", "P-1", null, "check-in", null, "Lobby", null, true, null, LocalDateTime.now()));
+        before.close();
+
+        AccessJournal journal = journal();
+        AccessLogRepository repository = mock(AccessLogRepository.class);
+        when(repository.findMaxJournalSequence()).thenReturn(1L);
+        when(repository.findJournalSequencesFrom(anyLong())).thenReturn(List.of(1L));
+        AccessLogIngestionService service = service(journal, repository, new ArrayList<>());
+
+        assertEquals(0, service.replayJournal());
+        verify(repository, never()).saveAll(anyList());
+        journal.close();
+    }
+
+    private AccessJournal journal() throws Exception {
+        AccessJournal journal = new AccessJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", 1 << 20);
+        ReflectionTestUtils.setField(journal, "retainedSegments", 4);
+        journal.open();
+        return journal;
+    }
+
+    private static AccessLogIngestionService service(AccessJournal journal, AccessLogRepository repository,
+                                                     List<Object> published) {
+        AccessLogIngestionService service = new AccessLogIngestionService();
+        ApplicationEventPublisher publisher = published::add;
+        ReflectionTestUtils.setField(service, "accessJournal", journal);
+        ReflectionTestUtils.setField(service, "accessLogRepository", repository);
+        ReflectionTestUtils.setField(service, "accessRollupService", mock(AccessRollupService.class));
+        ReflectionTestUtils.setField(service, "eventPublisher", publisher);
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "recoveryWindow", 100_000L);
+        return service;
+    }
+}
@@ -0,0 +1,159 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentRingBufferTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int ITEMS_PER_PRODUCER = 20_000;
+
+    private record Item(int producer, int n) {}
+
+    @Test
+    void keepsTheNewestItemsNewestFirst() {
+        ConcurrentRingBuffer<Integer> ring = new ConcurrentRingBuffer<>(4);
+        assertEquals(List.of(), ring.snapshot());
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i - 1, ring.add(i));
+        }
+        assertEquals(List.of(3, 2, 1), ring.snapshot());
+        assertEquals(3, ring.size());
+
+        for (int i = 4; i <= 10; i++) {
+            ring.add(i);
+        }
+        assertEquals(List.of(10, 9, 8, 7), ring.snapshot());
+        assertEquals(4, ring.size());
+        assertEquals(4, ring.capacity());
+        assertEquals(10, ring.totalAdded());
+    }
+
+    @Test
+    void visitorCanStopEarly() {
+        ConcurrentRingBuffer<Integer> ring = new ConcurrentRingBuffer<>(8);
+        for (int i = 1; i <= 20; i++) {
+            ring.add(i);
+        }
+        List<Integer> visited = new ArrayList<>();
+        ring.forEachNewestFirst(item -> {
+            visited.add(item);
+            return visited.size() < 3;
+        });
+        assertEquals(List.of(20, 19, 18), visited);
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentRingBuffer<>(0));
+    }
+
+    @Test
+    void concurrentProducersLeaveExactlyTheLastCapacityItems() throws Exception {
+        int capacity = 1000;
+        ConcurrentRingBuffer<Item> ring = new ConcurrentRingBuffer<>(capacity);
+        Map<Long, Item> bySequence = new ConcurrentHashMap<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.add(pool.submit(() -> {
+                start.await();
+                for (int n = 0; n < ITEMS_PER_PRODUCER; n++) {
+                    Item item = new Item(producer, n);
+                    bySequence.put(ring.add(item), item);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> producer : producers) {
+            producer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        long total = (long) PRODUCERS * ITEMS_PER_PRODUCER;
+        assertEquals(total, ring.totalAdded());
+        assertEquals(total, bySequence.size(), "every add got its own sequence");
+        assertEquals(capacity, ring.size());
+
+        // Once producers are done, the ring holds exactly the last `capacity` sequences in order
+        List<Item> expected = new ArrayList<>();
+        for (long sequence = total - 1; sequence >= total - capacity; sequence--) {
+            expected.add(bySequence.get(sequence));
+        }
+        assertEquals(expected, ring.snapshot());
+    }
+
+    @Test
+    void snapshotsTakenDuringWritesAreConsistent() throws Exception {
+        int capacity = 256;
+        ConcurrentRingBuffer<Item> ring = new ConcurrentRingBuffer<>(capacity);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS + 2);
+
+        List<Future<?>> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.add(pool.submit(() -> {
+                for (int n = 0; n < ITEMS_PER_PRODUCER; n++) {
+                    ring.add(new Item(producer, n));
+                }
+            }));
+        }
+
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(pool.submit(() -> {
+                int snapshots = 0;
+                while (producing.get() || snapshots == 0) {
+                    List<Item> snapshot = ring.snapshot();
+                    assertTrue(snapshot.size() <= capacity);
+                    Set<Item> seen = new HashSet<>();
+                    int[] lastSeen = new int[PRODUCERS];
+                    Arrays.fill(lastSeen, Integer.MAX_VALUE);
+                    for (Item item : snapshot) {
+                        assertNotNull(item, "unpublished slot exposed");
+                        assertTrue(seen.add(item), "item seen twice in one snapshot");
+                        // Newest first: each producer's items only go back in time
+                        assertTrue(item.n() < lastSeen[item.producer()], "items out of order: " + snapshot);
+                        lastSeen[item.producer()] = item.n();
+                    }
+                    snapshots++;
+                }
+                return snapshots;
+            }));
+        }
+
+        for (Future<?> producer : producers) {
+            producer.get(30, TimeUnit.SECONDS);
+        }
+        producing.set(false);
+        for (Future<Integer> reader : readers) {
+            assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        }
+        pool.shutdown();
+        assertEquals(capacity, ring.snapshot().size());
+    }
+}
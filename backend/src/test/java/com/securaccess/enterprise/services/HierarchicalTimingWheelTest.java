@@ -0,0 +1,102 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long LEVEL_1 = 64;
+    private static final long LEVEL_2 = 64 * 64;
+    private static final long LEVEL_3 = 64 * 64 * 64;
+    private static final long TOP = 1L << 30;
+
+    @Test
+    void timersCascadeDownAndFireOnTheirOwnTick() {
+        // Not aligned on any slot boundary, so every level is entered part way through
+        long start = 1_000_003;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, start);
+        long[] offsets = {1, 5, LEVEL_1 - 1, LEVEL_1, LEVEL_1 + 1, LEVEL_2 - 1, LEVEL_2, LEVEL_2 + 7,
+            LEVEL_3 - 1, LEVEL_3 + 1, 5 * LEVEL_3 + 11};
+        // Added out of order, they must still come out in deadline order
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            assertTrue(wheel.add(start + offsets[i], start + offsets[i]));
+        }
+        assertEquals(offsets.length, wheel.size());
+
+        List<Long> fired = new ArrayList<>();
+        for (long offset : offsets) {
+            long deadline = start + offset;
+            wheel.advanceTo(deadline - 1, fired::add);
+            assertFalse(fired.contains(deadline), "fired before " + deadline);
+            wheel.advanceTo(deadline, fired::add);
+            assertEquals(deadline, fired.get(fired.size() - 1), "not fired on its tick");
+        }
+        assertEquals(offsets.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersSharingASlotAllFire() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, 0);
+        for (int i = 0; i < 100; i++) {
+            wheel.add(LEVEL_2 * 1000 + i, i);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advanceTo(LEVEL_2 * 1000 - 1, fired::add);
+        assertTrue(fired.isEmpty());
+        // Rounded up to the next tick, never early
+        wheel.advanceTo(LEVEL_2 * 1000, fired::add);
+        assertEquals(1, fired.size());
+        wheel.advanceTo((LEVEL_2 + 1) * 1000, fired::add);
+        assertEquals(100, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesAlreadyReachedAreRefused() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 1000);
+        assertFalse(wheel.add(990, "past"));
+        assertFalse(wheel.add(1000, "now"));
+        assertTrue(wheel.add(1001, "next tick"));
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(1009, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(1010, fired::add);
+        assertEquals(List.of("next tick"), fired);
+    }
+
+    @Test
+    void deadlinesBeyondTheTopWheelWaitInOverflow() {
+        // Just short of a full turn of the top wheel
+        long start = TOP - 10;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, start);
+        // Next turn: brought back in when the turn starts
+        long nextTurn = TOP + 5;
+        // More than a full turn away: goes back to overflow at the next turn
+        long later = 2 * TOP + 3;
+        wheel.add(later, later);
+        wheel.add(nextTurn, nextTurn);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(nextTurn - 1, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(nextTurn, fired::add);
+        assertEquals(List.of(nextTurn), fired);
+
+        wheel.advanceTo(later - 1, fired::add);
+        assertEquals(1, fired.size());
+        assertEquals(1, wheel.size());
+        wheel.advanceTo(later, fired::add);
+        assertEquals(List.of(nextTurn, later), fired);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,70 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int distinct : new int[] {10, 1_000, 50_000, 500_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                // Every visitor scans twice, repeats must not count
+                sketch.add("WORKER-" + i);
+                sketch.add("WORKER-" + i);
+            }
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error <= 3 * sketch.relativeError(), distinct + " distinct estimated as " + sketch.estimate());
+        }
+    }
+
+    @Test
+    void mergedDaysCountPeopleSeenOnBothOnce() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        HyperLogLog week = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            monday.add("P" + i);
+            week.add("P" + i);
+        }
+        for (int i = 10_000; i < 30_000; i++) {
+            tuesday.add("P" + i);
+            week.add("P" + i);
+        }
+
+        HyperLogLog merged = new HyperLogLog();
+        merged.merge(monday);
+        merged.merge(tuesday);
+
+        assertEquals(week.estimate(), merged.estimate());
+        assertArrayEquals(week.toBytes(), merged.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void sparseAndDenseFormsRoundTrip() {
+        HyperLogLog small = new HyperLogLog();
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            if (i < 50) {
+                small.add("Q" + i);
+            }
+            large.add("Q" + i);
+        }
+
+        byte[] sparse = small.toBytes();
+        byte[] dense = large.toBytes();
+        assertEquals(1 + 50 * 3, sparse.length, "few visitors are stored as index/value pairs");
+        assertEquals(1 + 4096 * 6 / 8, dense.length, "registers are packed in 6 bits");
+
+        assertArrayEquals(sparse, HyperLogLog.fromBytes(sparse).toBytes());
+        assertArrayEquals(dense, HyperLogLog.fromBytes(dense).toBytes());
+        assertEquals(small.estimate(), HyperLogLog.fromBytes(sparse).estimate());
+        assertEquals(large.estimate(), HyperLogLog.fromBytes(dense).estimate());
+    }
+}
@@ -0,0 +1,64 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.Utilisateur;
+import com.securaccess.enterprise.repositories.UtilisateurRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class QrCodeBloomFilterTest {
+
+    @Autowired
+    private QrCodeBloomFilter qrCodeBloomFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+
+    @Test
+    void rebuildReadsEveryPersistedCodeWhateverItsState() {
+        Utilisateur utilisateur = utilisateurRepository.save(new Utilisateur(
+            "bloom-" + System.nanoTime() + "@example.com", "Ndiaye", "Fatou", "secret", Utilisateur.TypeUtilisateur.EMPLOYE));
+        String active = "EVT-BLOOM-" + System.nanoTime();
+        String expired = active + "-OLD";
+        // Written behind the filter's back (bulk import, another node), so only a rebuild can know about them
+        insert(active, utilisateur, LocalDateTime.now().plusDays(1), true);
+        insert(expired, utilisateur, LocalDateTime.now().minusDays(1), false);
+
+        assertFalse(qrCodeBloomFilter.mightBeIssued(active));
+        assertFalse(qrCodeBloomFilter.mightBeIssued(expired));
+
+        qrCodeBloomFilter.rebuild();
+
+        assertTrue(qrCodeBloomFilter.mightBeIssued(active));
+        // Expired and deactivated codes were issued, they are refused later as such, not as unknown
+        assertTrue(qrCodeBloomFilter.mightBeIssued(expired));
+        // The in-memory controller codes are a source as well
+        assertTrue(qrCodeBloomFilter.mightBeIssued("QR001"));
+        assertFalse(qrCodeBloomFilter.mightBeIssued("EVT-NEVER-ISSUED"));
+    }
+
+    @Test
+    void registeredCodesAreKnownWithoutARebuild() {
+        String code = "WRK-BLOOM-" + System.nanoTime();
+        assertFalse(qrCodeBloomFilter.mightBeIssued(code));
+        qrCodeBloomFilter.register(code);
+        assertTrue(qrCodeBloomFilter.mightBeIssued(code));
+    }
+
+    private void insert(String code, Utilisateur utilisateur, LocalDateTime expiration, boolean actif) {
+        jdbcTemplate.update("INSERT INTO qr_codes (code, utilisateur_id, date_expiration, actif, utilise, date_creation) "
+            + "VALUES (?, ?, ?, ?, false, ?)", code, utilisateur.getId(), expiration, actif, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,85 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QrCodeIdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void concurrentGenerationNeverCollidesAndStaysOrderedPerThread() throws Exception {
+        QrCodeIdGenerator generator = new QrCodeIdGenerator(7);
+        Set<String> codes = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    String previous = "";
+                    boolean ordered = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        String code = generator.nextCode("WORK");
+                        codes.add(code);
+                        ordered &= code.compareTo(previous) > 0;
+                        previous = code;
+                    }
+                    return ordered;
+                }));
+            }
+            start.countDown();
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(60, TimeUnit.SECONDS), "codes must increase within a thread");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(THREADS * IDS_PER_THREAD, codes.size());
+    }
+
+    @Test
+    void codesAreCompactAndRoundTrip() {
+        QrCodeIdGenerator generator = new QrCodeIdGenerator(3);
+        long id = generator.nextId();
+        String code = "HOST" + Base32Codec.encode(id);
+
+        assertEquals(4 + Base32Codec.LONG_LENGTH, code.length());
+        assertTrue(code.matches("[0-9A-Z]+"), "code must stay in the QR alphanumeric set");
+        assertEquals(id, QrCodeIdGenerator.parseId(code));
+        assertEquals(3, id & 0x3FF);
+    }
+
+    @Test
+    void lexicographicOrderMatchesNumericOrder() {
+        QrCodeIdGenerator generator = new QrCodeIdGenerator(0);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertTrue(second > first);
+        assertTrue(Base32Codec.encode(second).compareTo(Base32Codec.encode(first)) > 0);
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new QrCodeIdGenerator(1024));
+    }
+}
@@ -0,0 +1,63 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.entities.QrCodeStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QrExpirySchedulerTest {
+
+    @Test
+    void untrackedAndRetrackedCodesDropTheirOldTimers() throws Exception {
+        QrExpiryScheduler scheduler = new QrExpiryScheduler(10);
+        List<Object> published = new ArrayList<>();
+        ApplicationEventPublisher publisher = published::add;
+        ReflectionTestUtils.setField(scheduler, "eventPublisher", publisher);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime soon = now.plusNanos(300_000_000);
+        scheduler.track("KEPT", QrCodeIndex.Kind.WORKER, now.minusHours(1), soon, false);
+        // Cancelled: its timer still sits in the wheel but must not fire
+        scheduler.track("CANCELLED", QrCodeIndex.Kind.WORKER, now.minusHours(1), soon, false);
+        scheduler.untrack("CANCELLED");
+        // Rescheduled: the first timer is stale, only the extended window counts
+        scheduler.track("EXTENDED", QrCodeIndex.Kind.HOST, now.minusHours(1), soon, false);
+        scheduler.track("EXTENDED", QrCodeIndex.Kind.HOST, now.minusHours(1), now.plusDays(1), false);
+
+        scheduler.tick();
+        assertTrue(published.isEmpty());
+
+        Thread.sleep(700);
+        scheduler.tick();
+        assertEquals(List.of(new QrCodeStatusChange("KEPT", QrCodeIndex.Kind.WORKER, QrCodeStatus.EXPIRED)), published);
+        assertEquals(1, scheduler.getStats().get("tracked"));
+    }
+
+    @Test
+    void aCodeTrackedBeforeItsWindowIsActivatedThenExpired() throws Exception {
+        QrExpiryScheduler scheduler = new QrExpiryScheduler(10);
+        List<Object> published = new ArrayList<>();
+        ApplicationEventPublisher publisher = published::add;
+        ReflectionTestUtils.setField(scheduler, "eventPublisher", publisher);
+
+        LocalDateTime now = LocalDateTime.now();
+        scheduler.track("LATER", QrCodeIndex.Kind.WORKER, now.plusNanos(300_000_000), now.plusNanos(900_000_000), false);
+        scheduler.tick();
+
+        Thread.sleep(550);
+        scheduler.tick();
+        assertEquals(List.of(new QrCodeStatusChange("LATER", QrCodeIndex.Kind.WORKER, QrCodeStatus.ACTIVE)), published);
+
+        Thread.sleep(700);
+        scheduler.tick();
+        assertEquals(new QrCodeStatusChange("LATER", QrCodeIndex.Kind.WORKER, QrCodeStatus.EXPIRED), published.get(1));
+        assertEquals(0, scheduler.getStats().get("tracked"));
+    }
+}
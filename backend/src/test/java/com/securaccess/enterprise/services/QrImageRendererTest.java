@@ -0,0 +1,91 @@
+package com.securaccess.enterprise.services;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class QrImageRendererTest {
+
+    private final QrImageRenderer renderer = new QrImageRenderer();
+
+    @Test
+    void pngMatchesZxingImageIoOutputPixelForPixel() throws Exception {
+        String[] contents = {"QR001", "https://securaccess.local/qr/WRK-20240131-000042",
+            "v1.1.eyJjIjoiSFNULTAwMDEiLCJrIjoiSE9TVCJ9.c2lnbmF0dXJl-Zône-Énergie"};
+        // Widths that do and do not fill the last byte of a scanline
+        int[] sizes = {300, 157, 64, 33};
+        for (String content : contents) {
+            for (int size : sizes) {
+                for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+                    BitMatrix matrix = renderer.encode(content, size, size, level);
+                    BufferedImage ours = decode(renderer.toPng(matrix));
+                    BufferedImage reference = decode(referencePng(matrix));
+
+                    String label = content + " at " + size + " px, level " + level;
+                    assertEquals(reference.getWidth(), ours.getWidth(), label);
+                    assertEquals(reference.getHeight(), ours.getHeight(), label);
+                    for (int y = 0; y < ours.getHeight(); y++) {
+                        for (int x = 0; x < ours.getWidth(); x++) {
+                            if (ours.getRGB(x, y) != reference.getRGB(x, y)) {
+                                throw new AssertionError(label + ": pixel (" + x + ", " + y + ") differs");
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void pngIsOneBitPaletteAndScansBack() throws Exception {
+        String content = "https://securaccess.local/qr/HST-20240131-000007";
+        byte[] png = renderer.renderPng(content, 300, 300, ErrorCorrectionLevel.M);
+
+        BufferedImage image = decode(png);
+        IndexColorModel palette = assertInstanceOf(IndexColorModel.class, image.getColorModel());
+        assertEquals(1, palette.getPixelSize());
+        assertEquals(2, palette.getMapSize());
+
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        assertEquals(content, new QRCodeReader().decode(bitmap).getText());
+    }
+
+    @Test
+    void streamedAndReturnedPngAreTheSameBytes() throws Exception {
+        BitMatrix matrix = renderer.encode("WRK-STREAM", 157, 157, ErrorCorrectionLevel.H);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        renderer.writePng(matrix, streamed);
+        assertArrayEquals(renderer.toPng(matrix), streamed.toByteArray());
+        // Buffers are reused per thread, a second render must not carry anything over
+        assertArrayEquals(renderer.toPng(matrix), renderer.toPng(renderer.encode("WRK-STREAM", 157, 157, ErrorCorrectionLevel.H)));
+    }
+
+    private static byte[] referencePng(BitMatrix matrix) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] png) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            throw new AssertionError("not a readable PNG");
+        }
+        return image;
+    }
+}
@@ -0,0 +1,59 @@
+package com.securaccess.enterprise.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void noFalseNegativesAfterGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(64, 0.001);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("WORKER-" + i);
+        }
+        assertTrue(filter.stageCount() > 5, "filter did not grow: " + filter.stageCount() + " stages");
+        // Codes that already tested positive on insert are not counted again
+        assertTrue(filter.count() > 49_500 && filter.count() <= 50_000, "count " + filter.count());
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(filter.mightContain("WORKER-" + i), "WORKER-" + i + " lost after growth");
+        }
+    }
+
+    @Test
+    void repeatedCodesAreCountedOnce() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 1000; i++) {
+                filter.put("HOST-" + i);
+            }
+        }
+        // A false positive on insert can swallow a code, never more than the rate allows
+        assertTrue(filter.count() <= 1000 && filter.count() > 990, "count " + filter.count());
+    }
+
+    @Test
+    void falsePositiveRateStaysWithinTargetAcrossStages() {
+        for (double target : new double[] {0.01, 0.001}) {
+            // Grows from 1 000 to 200 000 codes, eight stages
+            ScalableBloomFilter filter = new ScalableBloomFilter(1000, target);
+            for (int i = 0; i < 200_000; i++) {
+                filter.put("ISSUED-" + i);
+            }
+            assertTrue(filter.stageCount() >= 8);
+            assertTrue(filter.expectedFalsePositiveRate() <= target,
+                "estimated rate " + filter.expectedFalsePositiveRate() + " above " + target);
+
+            int probes = 1_000_000;
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++) {
+                if (filter.mightContain("NEVER-" + i)) {
+                    falsePositives++;
+                }
+            }
+            double measured = (double) falsePositives / probes;
+            // Slack for sampling noise only, the stage rates sum to the target
+            assertTrue(measured <= target * 1.25, "measured rate " + measured + " above " + target);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.securaccess.enterprise.services;
+
+import com.securaccess.enterprise.repositories.RevokedQrCodeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Revocations are written to the database and reloaded, so a restart with the same signing key
+// keeps rejecting the tokens of deactivated, used or deleted codes
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SignedQrTokenServiceTest {
+
+    private static final String KEYS = "1:" + Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Autowired
+    private RevokedQrCodeRepository revokedQrCodeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void revokedTokenStaysRejectedAfterRestart() {
+        QrCodeIdGenerator generator = new QrCodeIdGenerator(3);
+        String revokedCode = generator.nextCode("WORK");
+        String activeCode = generator.nextCode("WORK");
+        Instant now = Instant.now();
+        Instant validTo = now.plus(1, ChronoUnit.DAYS);
+
+        SignedQrTokenService before = start();
+        String revokedToken = before.issue(revokedCode, QrCodeIndex.Kind.WORKER, "Lobby", now.minusSeconds(60), validTo);
+        String activeToken = before.issue(activeCode, QrCodeIndex.Kind.WORKER, "Lobby", now.minusSeconds(60), validTo);
+        before.revoke(revokedCode, validTo.toEpochMilli());
+        assertEquals("revoked", before.verify(revokedToken, now.toEpochMilli()).reason());
+
+        SignedQrTokenService after = start();
+        assertEquals(1, after.revokedCount());
+        assertEquals("revoked", after.verify(revokedToken, now.toEpochMilli()).reason());
+        assertTrue(after.verify(activeToken, now.toEpochMilli()).valid());
+
+        // Reinstating is persisted as well
+        after.reinstate(revokedCode);
+        assertTrue(start().verify(revokedToken, now.toEpochMilli()).valid());
+    }
+
+    private SignedQrTokenService start() {
+        SignedQrTokenService service = new SignedQrTokenService();
+        ReflectionTestUtils.setField(service, "revokedQrCodeRepository", revokedQrCodeRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "activeKeyId", 1);
+        ReflectionTestUtils.setField(service, "configuredKeys", KEYS);
+        service.initialize();
+        return service;
+    }
+}